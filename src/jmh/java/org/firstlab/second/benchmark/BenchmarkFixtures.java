@@ -0,0 +1,78 @@
+package org.firstlab.second.benchmark;
+
+import org.firstlab.second.SecondApplication;
+import org.firstlab.second.dto.CustomerDTO;
+import org.firstlab.second.dto.HallDTO;
+import org.firstlab.second.dto.MovieDTO;
+import org.firstlab.second.dto.ScreeningDTO;
+import org.firstlab.second.service.CustomerService;
+import org.firstlab.second.service.HallService;
+import org.firstlab.second.service.MovieService;
+import org.firstlab.second.service.ScreeningService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Boots the application without the web server on the "bench" profile (embedded H2)
+ * and creates the reference data benchmarks need.
+ */
+final class BenchmarkFixtures implements AutoCloseable {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkFixtures(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    /**
+     * @param properties extra {@code key=value} properties overriding the bench profile
+     */
+    static BenchmarkFixtures start(String... properties) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SecondApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("bench")
+                .properties(properties)
+                .run();
+        return new BenchmarkFixtures(context);
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    MovieDTO createMovie() {
+        return bean(MovieService.class).createMovie(
+                new MovieDTO(null, "Movie " + SEQUENCE.incrementAndGet(), "Benchmark movie", 120, "Drama", "Director", 2024));
+    }
+
+    HallDTO createHall(int capacity) {
+        return bean(HallService.class).createHall(
+                new HallDTO(null, "Hall " + SEQUENCE.incrementAndGet(), capacity));
+    }
+
+    CustomerDTO createCustomer() {
+        int n = SEQUENCE.incrementAndGet();
+        return bean(CustomerService.class).createCustomer(
+                new CustomerDTO(null, "Bench", "Customer" + n, "bench" + n + "@example.com", "+70000000000"));
+    }
+
+    ScreeningDTO createScreening(MovieDTO movie, HallDTO hall) {
+        ScreeningDTO screening = new ScreeningDTO();
+        screening.setMovieId(movie.getId());
+        screening.setHallId(hall.getId());
+        screening.setStartTime(LocalDateTime.now().plusDays(1).plusHours(3L * SEQUENCE.incrementAndGet()));
+        screening.setPrice(450.0);
+        return bean(ScreeningService.class).createScreening(screening);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,110 @@
+package org.firstlab.second.benchmark;
+
+import org.firstlab.second.dto.BulkPurchaseRequest;
+import org.firstlab.second.dto.CustomerDTO;
+import org.firstlab.second.dto.HallDTO;
+import org.firstlab.second.dto.HallLayoutDTO;
+import org.firstlab.second.dto.HallRowDTO;
+import org.firstlab.second.dto.MovieDTO;
+import org.firstlab.second.dto.TicketDTO;
+import org.firstlab.second.service.HallLayoutService;
+import org.firstlab.second.service.TicketService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group purchase by seat count through {@link TicketService#bulkPurchaseTickets}: the seats are picked by
+ * the best available search in a 1000 seat hall of 25 rows by 40. A screening is replaced by a new one
+ * once a group no longer fits, the failed attempt is part of the measured cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BestAvailableBenchmark {
+
+    private static final int ROWS = 25;
+    private static final int SEATS_PER_ROW = 40;
+
+    @Param({"2", "4", "8"})
+    private int groupSize;
+
+    private BenchmarkFixtures fixtures;
+    private TicketService ticketService;
+    private CustomerDTO customer;
+    private MovieDTO movie;
+    private HallDTO hall;
+    private volatile Long screeningId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixtures = BenchmarkFixtures.start();
+        ticketService = fixtures.bean(TicketService.class);
+        customer = fixtures.createCustomer();
+        movie = fixtures.createMovie();
+        hall = fixtures.createHall(ROWS * SEATS_PER_ROW);
+
+        List<HallRowDTO> rows = new ArrayList<>(ROWS);
+        for (int row = 0; row < ROWS; row++) {
+            // Лучшие ряды в середине зала
+            double quality = 1.0 + ROWS / 2.0 - Math.abs(row - ROWS / 2.0);
+            rows.add(new HallRowDTO(String.valueOf(row + 1), null, SEATS_PER_ROW, quality, null));
+        }
+        fixtures.bean(HallLayoutService.class).updateLayout(hall.getId(), new HallLayoutDTO(null, rows));
+        screeningId = fixtures.createScreening(movie, hall).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixtures.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<TicketDTO> purchaseBestAvailable() {
+        return purchase();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public List<TicketDTO> purchaseBestAvailableContended() {
+        return purchase();
+    }
+
+    private List<TicketDTO> purchase() {
+        while (true) {
+            Long current = screeningId;
+            try {
+                return ticketService.bulkPurchaseTickets(request(current));
+            } catch (RuntimeException ex) {
+                nextScreening(current);
+            }
+        }
+    }
+
+    private synchronized void nextScreening(Long soldOut) {
+        if (soldOut.equals(screeningId)) {
+            screeningId = fixtures.createScreening(movie, hall).getId();
+        }
+    }
+
+    private BulkPurchaseRequest request(Long screeningId) {
+        BulkPurchaseRequest request = new BulkPurchaseRequest();
+        request.setScreeningId(screeningId);
+        request.setCustomerId(customer.getId());
+        request.setSeatCount(groupSize);
+        return request;
+    }
+}
@@ -0,0 +1,66 @@
+package org.firstlab.second.benchmark;
+
+import org.firstlab.second.dto.BulkPurchaseRequest;
+import org.firstlab.second.dto.CustomerDTO;
+import org.firstlab.second.dto.TicketDTO;
+import org.firstlab.second.service.TicketService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-seat cost of a 200-seat group purchase with JDBC batching off ({@code jdbcBatchSize = 1},
+ * one INSERT round trip per seat as with identity ids) and on.
+ * Against H2 the gap is only statement overhead; against PostgreSQL it also includes the network
+ * round trips, run with {@code -Dspring.datasource.url=...} to measure that.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BulkInsertBenchmark {
+
+    private static final int GROUP_SIZE = 200;
+
+    @Param({"1", "50"})
+    private int jdbcBatchSize;
+
+    private BenchmarkFixtures fixtures;
+    private TicketService ticketService;
+    private CustomerDTO customer;
+    private SeatSupply seats;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixtures = BenchmarkFixtures.start("spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize);
+        ticketService = fixtures.bean(TicketService.class);
+        customer = fixtures.createCustomer();
+        seats = new SeatSupply(fixtures, fixtures.createMovie(), fixtures.createHall(10_000));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixtures.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GROUP_SIZE)
+    public List<TicketDTO> purchaseGroupPerSeat() {
+        SeatSupply.SeatBlock block = seats.take(GROUP_SIZE);
+        BulkPurchaseRequest request = new BulkPurchaseRequest();
+        request.setScreeningId(block.screeningId());
+        request.setCustomerId(customer.getId());
+        request.setSeatNumbers(block.seats());
+        return ticketService.bulkPurchaseTickets(request);
+    }
+}
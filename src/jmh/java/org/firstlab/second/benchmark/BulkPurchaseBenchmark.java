@@ -0,0 +1,74 @@
+package org.firstlab.second.benchmark;
+
+import org.firstlab.second.dto.BulkPurchaseRequest;
+import org.firstlab.second.dto.CustomerDTO;
+import org.firstlab.second.dto.TicketDTO;
+import org.firstlab.second.service.TicketService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group purchase through {@link TicketService#bulkPurchaseTickets}, alone and with 8 concurrent groups
+ * buying in the same hall.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BulkPurchaseBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int capacity;
+
+    @Param({"10", "50"})
+    private int groupSize;
+
+    private BenchmarkFixtures fixtures;
+    private TicketService ticketService;
+    private CustomerDTO customer;
+    private SeatSupply seats;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixtures = BenchmarkFixtures.start();
+        ticketService = fixtures.bean(TicketService.class);
+        customer = fixtures.createCustomer();
+        seats = new SeatSupply(fixtures, fixtures.createMovie(), fixtures.createHall(capacity));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixtures.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<TicketDTO> purchaseGroup() {
+        return ticketService.bulkPurchaseTickets(request(seats.take(groupSize)));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public List<TicketDTO> purchaseGroupContended() {
+        return ticketService.bulkPurchaseTickets(request(seats.take(groupSize)));
+    }
+
+    private BulkPurchaseRequest request(SeatSupply.SeatBlock block) {
+        BulkPurchaseRequest request = new BulkPurchaseRequest();
+        request.setScreeningId(block.screeningId());
+        request.setCustomerId(customer.getId());
+        request.setSeatNumbers(block.seats());
+        return request;
+    }
+}
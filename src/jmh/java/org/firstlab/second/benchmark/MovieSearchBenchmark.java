@@ -0,0 +1,76 @@
+package org.firstlab.second.benchmark;
+
+import org.firstlab.second.dto.MovieDTO;
+import org.firstlab.second.service.MovieSearchIndex;
+import org.firstlab.second.service.MovieService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Movie search through {@link MovieSearchIndex} over a catalogue of generated movies: an exact term,
+ * a prefix of a title word, a word with a typo and a two term query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MovieSearchBenchmark {
+
+    private static final String[] WORDS = {
+            "interstellar", "midnight", "garden", "shadow", "river", "kingdom", "silent", "winter",
+            "journey", "empire", "crimson", "harbor", "memory", "thunder", "orchard", "station",
+            "whisper", "frontier", "lantern", "voyage", "mirror", "summer", "falcon", "citadel"
+    };
+    private static final String[] GENRES = {"Drama", "Comedy", "Thriller", "Sci-Fi", "Horror", "Animation"};
+
+    @Param({"20000"})
+    private int movieCount;
+
+    @Param({"interstellar", "inter", "intersteller", "silent winter"})
+    private String query;
+
+    private BenchmarkFixtures fixtures;
+    private MovieSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixtures = BenchmarkFixtures.start();
+        MovieService movieService = fixtures.bean(MovieService.class);
+        Random random = new Random(42);
+        for (int i = 0; i < movieCount; i++) {
+            String title = word(random) + " " + word(random) + " " + i;
+            movieService.createMovie(new MovieDTO(null, title, "The " + word(random) + " of the " + word(random),
+                    90 + random.nextInt(90), GENRES[random.nextInt(GENRES.length)], "Director " + word(random),
+                    1950 + random.nextInt(75)));
+        }
+        index = fixtures.bean(MovieSearchIndex.class);
+        if (!index.isReady()) {
+            throw new IllegalStateException("Movie search index is not loaded");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixtures.close();
+    }
+
+    @Benchmark
+    public List<MovieDTO> search() {
+        return index.search(query, 0, 20);
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
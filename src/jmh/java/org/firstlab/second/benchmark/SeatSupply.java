@@ -0,0 +1,43 @@
+package org.firstlab.second.benchmark;
+
+import org.firstlab.second.dto.HallDTO;
+import org.firstlab.second.dto.MovieDTO;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Hands out blocks of free seats, opening a new screening in the same hall once the current one is sold out.
+ * The cost of creating a screening is amortized over the hall capacity.
+ */
+final class SeatSupply {
+
+    private final BenchmarkFixtures fixtures;
+    private final MovieDTO movie;
+    private final HallDTO hall;
+    private Long screeningId;
+    private int nextSeat;
+
+    SeatSupply(BenchmarkFixtures fixtures, MovieDTO movie, HallDTO hall) {
+        this.fixtures = fixtures;
+        this.movie = movie;
+        this.hall = hall;
+    }
+
+    synchronized SeatBlock take(int count) {
+        if (screeningId == null || nextSeat + count - 1 > hall.getCapacity()) {
+            screeningId = fixtures.createScreening(movie, hall).getId();
+            nextSeat = 1;
+        }
+        SeatBlock block = new SeatBlock(screeningId, nextSeat, count);
+        nextSeat += count;
+        return block;
+    }
+
+    record SeatBlock(Long screeningId, int firstSeat, int count) {
+
+        List<Integer> seats() {
+            return IntStream.range(firstSeat, firstSeat + count).boxed().toList();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.firstlab.second.benchmark;
+
+import org.firstlab.second.dto.BulkPurchaseRequest;
+import org.firstlab.second.dto.CustomerDTO;
+import org.firstlab.second.dto.ScreeningDTO;
+import org.firstlab.second.dto.TicketDTO;
+import org.firstlab.second.service.TicketService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Loading and mapping large ticket lists into nested {@link TicketDTO}s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TicketMappingBenchmark {
+
+    private static final int BATCH = 500;
+
+    @Param({"100", "1000", "10000"})
+    private int ticketCount;
+
+    private BenchmarkFixtures fixtures;
+    private TicketService ticketService;
+    private Long screeningId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixtures = BenchmarkFixtures.start();
+        ticketService = fixtures.bean(TicketService.class);
+        CustomerDTO customer = fixtures.createCustomer();
+        ScreeningDTO screening = fixtures.createScreening(fixtures.createMovie(), fixtures.createHall(ticketCount));
+        screeningId = screening.getId();
+
+        for (int first = 1; first <= ticketCount; first += BATCH) {
+            BulkPurchaseRequest request = new BulkPurchaseRequest();
+            request.setScreeningId(screeningId);
+            request.setCustomerId(customer.getId());
+            request.setSeatNumbers(IntStream.rangeClosed(first, Math.min(first + BATCH - 1, ticketCount)).boxed().toList());
+            ticketService.bulkPurchaseTickets(request);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixtures.close();
+    }
+
+    @Benchmark
+    public List<TicketDTO> ticketsByScreening() {
+        return ticketService.getTicketsByScreening(screeningId, true);
+    }
+
+    @Benchmark
+    public List<TicketDTO> ticketSummariesByScreening() {
+        return ticketService.getTicketsByScreening(screeningId, false);
+    }
+
+    @Benchmark
+    public List<TicketDTO> firstPageOfAllTickets() {
+        return ticketService.getAllTickets(0L, 1000, true);
+    }
+
+    @Benchmark
+    public List<TicketDTO> firstPageOfTicketSummaries() {
+        return ticketService.getAllTickets(0L, 1000, false);
+    }
+
+    @Benchmark
+    public void streamAllTickets(Blackhole blackhole) {
+        ticketService.streamAllTickets(blackhole::consume);
+    }
+}
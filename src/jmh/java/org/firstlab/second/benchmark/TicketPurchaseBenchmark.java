@@ -0,0 +1,88 @@
+package org.firstlab.second.benchmark;
+
+import org.firstlab.second.dto.CustomerDTO;
+import org.firstlab.second.dto.HallDTO;
+import org.firstlab.second.dto.MovieDTO;
+import org.firstlab.second.dto.TicketDTO;
+import org.firstlab.second.service.TicketService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single seat purchase through {@link TicketService#createTicket}: uncontended, with 8 threads buying
+ * in the same hall, and the fail-fast path of buying a seat that is already taken.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TicketPurchaseBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int capacity;
+
+    private BenchmarkFixtures fixtures;
+    private TicketService ticketService;
+    private CustomerDTO customer;
+    private SeatSupply seats;
+    private TicketDTO takenSeat;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixtures = BenchmarkFixtures.start();
+        ticketService = fixtures.bean(TicketService.class);
+        MovieDTO movie = fixtures.createMovie();
+        HallDTO hall = fixtures.createHall(capacity);
+        customer = fixtures.createCustomer();
+        seats = new SeatSupply(fixtures, movie, hall);
+
+        takenSeat = ticket(new SeatSupply(fixtures, movie, hall).take(1));
+        ticketService.createTicket(takenSeat);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixtures.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public TicketDTO purchaseSeat() {
+        return ticketService.createTicket(ticket(seats.take(1)));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public TicketDTO purchaseSeatContended() {
+        return ticketService.createTicket(ticket(seats.take(1)));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void purchaseTakenSeat(Blackhole blackhole) {
+        try {
+            blackhole.consume(ticketService.createTicket(takenSeat));
+        } catch (RuntimeException expected) {
+            blackhole.consume(expected);
+        }
+    }
+
+    private TicketDTO ticket(SeatSupply.SeatBlock block) {
+        TicketDTO ticket = new TicketDTO();
+        ticket.setScreeningId(block.screeningId());
+        ticket.setCustomerId(customer.getId());
+        ticket.setSeatNumber(block.firstSeat());
+        return ticket;
+    }
+}
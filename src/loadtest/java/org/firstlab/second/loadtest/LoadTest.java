@@ -0,0 +1,175 @@
+package org.firstlab.second.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+/**
+ * Closed-loop load test: every client sends a request, waits for the response and sends the next one,
+ * alternating between the upcoming screenings and the first page of tickets.
+ * <p>
+ * Start the application with {@code VIRTUAL_THREADS=false} and then {@code true}, run
+ * {@code ./gradlew loadTest -PbaseUrl=... -Pclients=5000 -PdurationSeconds=60} against each
+ * and compare the printed throughput and percentiles.
+ */
+public class LoadTest {
+
+    private static final List<String> PATHS = List.of("/api/screenings/upcoming", "/api/tickets");
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    public static void main(String[] args) throws InterruptedException {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8081";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        Duration duration = Duration.ofSeconds(args.length > 2 ? Long.parseLong(args[2]) : 60);
+
+        System.out.printf("Load test: %d clients, %s, %s%n", clients, duration, baseUrl);
+
+        List<Recorder> recorders = new ArrayList<>();
+        for (String path : PATHS) {
+            recorders.add(new Recorder(path));
+        }
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .executor(executor)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            List<HttpRequest> requests = PATHS.stream()
+                    .map(path -> HttpRequest.newBuilder(URI.create(baseUrl + path))
+                            .timeout(REQUEST_TIMEOUT)
+                            .GET()
+                            .build())
+                    .toList();
+
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(clients);
+            long[] deadline = new long[1];
+
+            for (int client = 0; client < clients; client++) {
+                int offset = client;
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                        for (int i = offset; System.nanoTime() < deadline[0]; i++) {
+                            int index = i % requests.size();
+                            recorders.get(index).record(() -> httpClient.send(requests.get(index),
+                                    HttpResponse.BodyHandlers.discarding()).statusCode());
+                        }
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+
+            long startedAt = System.nanoTime();
+            deadline[0] = startedAt + duration.toNanos();
+            start.countDown();
+            done.await();
+            double elapsedSeconds = (System.nanoTime() - startedAt) / 1e9;
+
+            System.out.printf("%-28s %10s %8s %10s %9s %9s %9s %9s%n",
+                    "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "max ms");
+            for (Recorder recorder : recorders) {
+                recorder.print(elapsedSeconds);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        int send() throws Exception;
+    }
+
+    /**
+     * Collects latencies per endpoint. Each client appends to its own buffer, buffers are merged at the end.
+     */
+    private static final class Recorder {
+
+        private final String path;
+        private final AtomicLong errors = new AtomicLong();
+        private final ThreadLocal<LatencyBuffer> buffer;
+        private final List<LatencyBuffer> buffers = new ArrayList<>();
+
+        Recorder(String path) {
+            this.path = path;
+            this.buffer = ThreadLocal.withInitial(() -> {
+                LatencyBuffer created = new LatencyBuffer();
+                synchronized (buffers) {
+                    buffers.add(created);
+                }
+                return created;
+            });
+        }
+
+        void record(Call call) throws InterruptedException {
+            long started = System.nanoTime();
+            try {
+                int status = call.send();
+                if (status >= 400) {
+                    errors.incrementAndGet();
+                }
+            } catch (InterruptedException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                errors.incrementAndGet();
+            }
+            buffer.get().add(System.nanoTime() - started);
+        }
+
+        void print(double elapsedSeconds) {
+            long[] latencies;
+            synchronized (buffers) {
+                latencies = buffers.stream()
+                        .flatMapToLong(LatencyBuffer::stream)
+                        .toArray();
+            }
+            Arrays.sort(latencies);
+            System.out.printf("%-28s %10d %8d %10.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    path,
+                    latencies.length,
+                    errors.get(),
+                    latencies.length / elapsedSeconds,
+                    percentile(latencies, 0.50),
+                    percentile(latencies, 0.90),
+                    percentile(latencies, 0.99),
+                    latencies.length == 0 ? 0.0 : latencies[latencies.length - 1] / 1e6);
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(index, 0)] / 1e6;
+        }
+    }
+
+    private static final class LatencyBuffer {
+
+        private long[] values = new long[64];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        LongStream stream() {
+            return Arrays.stream(values, 0, size);
+        }
+    }
+}
@@ -1,13 +1,19 @@
 package org.firstlab.second;
 
+import org.firstlab.second.config.ImportModeEnvironmentPostProcessor;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 
 @SpringBootApplication
 public class SecondApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(SecondApplication.class, args);
+        ConfigurableApplicationContext context = SpringApplication.run(SecondApplication.class, args);
+        // Импорт из командной строки: после CsvImportRunner приложение завершается с его кодом
+        if (context.getEnvironment().containsProperty(ImportModeEnvironmentPostProcessor.IMPORT_FILE_PROPERTY)) {
+            System.exit(SpringApplication.exit(context));
+        }
     }
 
 }
@@ -0,0 +1,26 @@
+package org.firstlab.second.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Async and @Scheduled. Both run on the executors auto-configured by Spring Boot,
+ * which switch to virtual threads together with Tomcat when spring.threads.virtual.enabled is set.
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    /**
+     * Turned off for a command line import, see {@link ImportModeEnvironmentPostProcessor}.
+     */
+    public static final String SCHEDULING_ENABLED_PROPERTY = "cinema.scheduling.enabled";
+
+    @Configuration
+    @EnableScheduling
+    @ConditionalOnProperty(name = SCHEDULING_ENABLED_PROPERTY, matchIfMissing = true)
+    static class SchedulingConfig {
+    }
+}
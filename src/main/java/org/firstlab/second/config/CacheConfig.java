@@ -0,0 +1,30 @@
+package org.firstlab.second.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * In-process caches for reference data that rarely changes.
+ * Puts and evictions are deferred until the surrounding transaction commits,
+ * so a rolled back update never drops or replaces a cached entry.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String MOVIES = "movies";
+    public static final String HALLS = "halls";
+    public static final String HALL_LAYOUTS = "hall-layouts";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${cinema.cache.reference-data-spec}") String referenceDataSpec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(MOVIES, HALLS, HALL_LAYOUTS);
+        cacheManager.setCacheSpecification(referenceDataSpec);
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,31 @@
+package org.firstlab.second.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+/**
+ * Starts the application as a one-off CSV import when {@code cinema.import.file} is set: no web server,
+ * so it runs next to a serving instance without SERVER_PORT, and no scheduled jobs.
+ * Registered in META-INF/spring.factories, it has to run before the application type is decided.
+ */
+public class ImportModeEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    public static final String IMPORT_FILE_PROPERTY = "cinema.import.file";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!environment.containsProperty(IMPORT_FILE_PROPERTY)) {
+            return;
+        }
+        environment.getPropertySources().addFirst(new MapPropertySource("cinemaImportMode", Map.of(
+                "spring.main.web-application-type", "none",
+                // server.port=${SERVER_PORT} must still resolve if anything binds the server properties
+                "server.port", "-1",
+                AsyncConfig.SCHEDULING_ENABLED_PROPERTY, "false"
+        )));
+    }
+}
@@ -0,0 +1,58 @@
+package org.firstlab.second.controller;
+
+import org.firstlab.second.dto.BoxOfficeDTO;
+import org.firstlab.second.service.BoxOfficeAnalytics;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/analytics")
+public class AnalyticsController {
+
+    private final BoxOfficeAnalytics boxOfficeAnalytics;
+
+    public AnalyticsController(BoxOfficeAnalytics boxOfficeAnalytics) {
+        this.boxOfficeAnalytics = boxOfficeAnalytics;
+    }
+
+    @GetMapping("/screenings/{id}")
+    public ResponseEntity<BoxOfficeDTO> getScreening(@PathVariable Long id) {
+        return ResponseEntity.ok(boxOfficeAnalytics.getScreening(id));
+    }
+
+    @GetMapping("/movies")
+    public ResponseEntity<List<BoxOfficeDTO>> getMovies() {
+        return ResponseEntity.ok(boxOfficeAnalytics.getMovies());
+    }
+
+    @GetMapping("/movies/{id}")
+    public ResponseEntity<BoxOfficeDTO> getMovie(@PathVariable Long id) {
+        return ResponseEntity.ok(boxOfficeAnalytics.getMovie(id));
+    }
+
+    @GetMapping("/halls")
+    public ResponseEntity<List<BoxOfficeDTO>> getHalls() {
+        return ResponseEntity.ok(boxOfficeAnalytics.getHalls());
+    }
+
+    @GetMapping("/halls/{id}")
+    public ResponseEntity<BoxOfficeDTO> getHall(@PathVariable Long id) {
+        return ResponseEntity.ok(boxOfficeAnalytics.getHall(id));
+    }
+
+    @GetMapping("/days")
+    public ResponseEntity<List<BoxOfficeDTO>> getDays(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(boxOfficeAnalytics.getDays(from, to));
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<BoxOfficeDTO> rebuild() {
+        return ResponseEntity.ok(boxOfficeAnalytics.rebuild());
+    }
+}
@@ -0,0 +1,46 @@
+package org.firstlab.second.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.firstlab.second.dto.CacheStatsDTO;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Objects;
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+
+    private final CacheManager cacheManager;
+
+    public CacheController(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<List<CacheStatsDTO>> getCacheStats() {
+        List<CacheStatsDTO> stats = cacheManager.getCacheNames().stream()
+                .map(cacheManager::getCache)
+                .filter(Objects::nonNull)
+                .filter(cache -> cache.getNativeCache() instanceof Cache)
+                .map(cache -> {
+                    Cache<?, ?> nativeCache = (Cache<?, ?>) cache.getNativeCache();
+                    CacheStats cacheStats = nativeCache.stats();
+                    return new CacheStatsDTO(
+                            cache.getName(),
+                            nativeCache.estimatedSize(),
+                            cacheStats.hitCount(),
+                            cacheStats.missCount(),
+                            cacheStats.hitRate(),
+                            cacheStats.evictionCount()
+                    );
+                })
+                .toList();
+        return ResponseEntity.ok(stats);
+    }
+}
@@ -1,22 +1,40 @@
 package org.firstlab.second.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import org.firstlab.second.dto.CustomerDTO;
+import org.firstlab.second.dto.CustomerStatsDTO;
+import org.firstlab.second.dto.PurchaseHistoryDTO;
+import org.firstlab.second.service.CustomerHistoryService;
 import org.firstlab.second.service.CustomerService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
+@Validated
 @RequestMapping("/api/customers")
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final CustomerHistoryService customerHistoryService;
+    private final ObjectMapper objectMapper;
 
-    public CustomerController(CustomerService customerService) {
+    public CustomerController(CustomerService customerService,
+                              CustomerHistoryService customerHistoryService,
+                              ObjectMapper objectMapper) {
         this.customerService = customerService;
+        this.customerHistoryService = customerHistoryService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -26,9 +44,16 @@ public class CustomerController {
     }
 
     @GetMapping
-    public ResponseEntity<List<CustomerDTO>> getAllCustomers() {
-        List<CustomerDTO> customers = customerService.getAllCustomers();
-        return ResponseEntity.ok(customers);
+    public ResponseEntity<List<CustomerDTO>> getAllCustomers(
+            @RequestParam(defaultValue = "0") Long after,
+            @RequestParam(defaultValue = ListResponses.DEFAULT_LIMIT) @Min(1) @Max(ListResponses.MAX_LIMIT) int limit) {
+        List<CustomerDTO> customers = customerService.getAllCustomers(after, limit);
+        return ListResponses.page(customers, limit, CustomerDTO::getId);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllCustomers() {
+        return ListResponses.ndjson(objectMapper, customerService::streamAllCustomers);
     }
 
     @GetMapping("/{id}")
@@ -48,4 +73,21 @@ public class CustomerController {
         customerService.deleteCustomer(id);
         return ResponseEntity.noContent().build();
     }
+
+    @GetMapping("/{id}/history")
+    public ResponseEntity<List<PurchaseHistoryDTO>> getPurchaseHistory(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "0") Long after,
+            @RequestParam(defaultValue = ListResponses.DEFAULT_LIMIT) @Min(1) @Max(ListResponses.MAX_LIMIT) int limit) {
+        List<PurchaseHistoryDTO> history = customerHistoryService.getPurchaseHistory(id, from, to, after, limit);
+        return ListResponses.page(history, limit, PurchaseHistoryDTO::getTicketId);
+    }
+
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<CustomerStatsDTO> getCustomerStats(@PathVariable Long id) {
+        CustomerStatsDTO stats = customerHistoryService.getCustomerStats(id);
+        return ResponseEntity.ok(stats);
+    }
 }
@@ -1,22 +1,38 @@
 package org.firstlab.second.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.firstlab.second.dto.FreeSlotDTO;
 import org.firstlab.second.dto.HallDTO;
+import org.firstlab.second.dto.HallLayoutDTO;
+import org.firstlab.second.service.HallLayoutService;
 import org.firstlab.second.service.HallService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
+@Validated
 @RequestMapping("/api/halls")
 public class HallController {
 
     private final HallService hallService;
+    private final HallLayoutService hallLayoutService;
+    private final ObjectMapper objectMapper;
 
-    public HallController(HallService hallService) {
+    public HallController(HallService hallService, HallLayoutService hallLayoutService, ObjectMapper objectMapper) {
         this.hallService = hallService;
+        this.hallLayoutService = hallLayoutService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -26,9 +42,16 @@ public class HallController {
     }
 
     @GetMapping
-    public ResponseEntity<List<HallDTO>> getAllHalls() {
-        List<HallDTO> halls = hallService.getAllHalls();
-        return ResponseEntity.ok(halls);
+    public ResponseEntity<List<HallDTO>> getAllHalls(
+            @RequestParam(defaultValue = "0") Long after,
+            @RequestParam(defaultValue = ListResponses.DEFAULT_LIMIT) @Min(1) @Max(ListResponses.MAX_LIMIT) int limit) {
+        List<HallDTO> halls = hallService.getAllHalls(after, limit);
+        return ListResponses.page(halls, limit, HallDTO::getId);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllHalls() {
+        return ListResponses.ndjson(objectMapper, hallService::streamAllHalls);
     }
 
     @GetMapping("/{id}")
@@ -48,4 +71,25 @@ public class HallController {
         hallService.deleteHall(id);
         return ResponseEntity.noContent().build();
     }
+
+    @GetMapping("/{id}/free-slots")
+    public ResponseEntity<List<FreeSlotDTO>> getFreeSlots(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "0") @Min(0) int minMinutes) {
+        List<FreeSlotDTO> slots = hallService.getFreeSlots(id, date, minMinutes);
+        return ResponseEntity.ok(slots);
+    }
+
+    @GetMapping("/{id}/layout")
+    public ResponseEntity<HallLayoutDTO> getLayout(@PathVariable Long id) {
+        HallLayoutDTO layout = hallLayoutService.getLayout(id);
+        return ResponseEntity.ok(layout);
+    }
+
+    @PutMapping("/{id}/layout")
+    public ResponseEntity<HallLayoutDTO> updateLayout(@PathVariable Long id, @Valid @RequestBody HallLayoutDTO layoutDTO) {
+        HallLayoutDTO updated = hallLayoutService.updateLayout(id, layoutDTO);
+        return ResponseEntity.ok(updated);
+    }
 }
@@ -0,0 +1,28 @@
+package org.firstlab.second.controller;
+
+import org.firstlab.second.dto.ImportReportDTO;
+import org.firstlab.second.service.CsvImportService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/import")
+public class ImportController {
+
+    private final CsvImportService csvImportService;
+
+    public ImportController(CsvImportService csvImportService) {
+        this.csvImportService = csvImportService;
+    }
+
+    /**
+     * The request body is the CSV file itself, read while it arrives.
+     */
+    @PostMapping(value = "/{target}", consumes = {"text/csv", "text/plain"})
+    public ResponseEntity<ImportReportDTO> importCsv(@PathVariable String target, InputStream body) {
+        ImportReportDTO report = csvImportService.importCsv(target, body);
+        return ResponseEntity.ok(report);
+    }
+}
@@ -0,0 +1,62 @@
+package org.firstlab.second.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Shared response shapes for list endpoints: keyset pages and NDJSON streams.
+ */
+final class ListResponses {
+
+    /**
+     * Set when the page is full; pass it back as {@code after} to get the next page.
+     */
+    static final String NEXT_AFTER_HEADER = "X-Next-After";
+
+    static final String DEFAULT_LIMIT = "100";
+    static final int MAX_LIMIT = 1000;
+    static final int MAX_OFFSET = 10_000;
+
+    private ListResponses() {
+    }
+
+    static <T> ResponseEntity<List<T>> page(List<T> items, int limit, Function<T, Long> idOf) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (!items.isEmpty() && items.size() == limit) {
+            response.header(NEXT_AFTER_HEADER, String.valueOf(idOf.apply(items.get(items.size() - 1))));
+        }
+        return response.body(items);
+    }
+
+    /**
+     * Writes one JSON document per line as rows are produced by the source.
+     */
+    static <T> ResponseEntity<StreamingResponseBody> ndjson(ObjectMapper objectMapper, Consumer<Consumer<T>> source) {
+        StreamingResponseBody body = out -> {
+            try {
+                source.accept(item -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(item));
+                        out.write('\n');
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
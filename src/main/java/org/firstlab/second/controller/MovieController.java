@@ -1,22 +1,31 @@
 package org.firstlab.second.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import org.firstlab.second.dto.MovieDTO;
 import org.firstlab.second.service.MovieService;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
 @RestController
+@Validated
 @RequestMapping("/api/movies")
 public class MovieController {
 
     private final MovieService movieService;
+    private final ObjectMapper objectMapper;
 
-    public MovieController(MovieService movieService) {
+    public MovieController(MovieService movieService, ObjectMapper objectMapper) {
         this.movieService = movieService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -26,9 +35,16 @@ public class MovieController {
     }
 
     @GetMapping
-    public ResponseEntity<List<MovieDTO>> getAllMovies() {
-        List<MovieDTO> movies = movieService.getAllMovies();
-        return ResponseEntity.ok(movies);
+    public ResponseEntity<List<MovieDTO>> getAllMovies(
+            @RequestParam(defaultValue = "0") Long after,
+            @RequestParam(defaultValue = ListResponses.DEFAULT_LIMIT) @Min(1) @Max(ListResponses.MAX_LIMIT) int limit) {
+        List<MovieDTO> movies = movieService.getAllMovies(after, limit);
+        return ListResponses.page(movies, limit, MovieDTO::getId);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllMovies() {
+        return ListResponses.ndjson(objectMapper, movieService::streamAllMovies);
     }
 
     @GetMapping("/{id}")
@@ -49,9 +65,14 @@ public class MovieController {
         return ResponseEntity.noContent().build();
     }
 
+    // q ищет по названию, режиссёру, жанру и описанию; title оставлен для старых клиентов
     @GetMapping("/search")
-    public ResponseEntity<List<MovieDTO>> searchMovies(@RequestParam String title) {
-        List<MovieDTO> movies = movieService.searchByTitle(title);
+    public ResponseEntity<List<MovieDTO>> searchMovies(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String title,
+            @RequestParam(defaultValue = "0") @Min(0) @Max(ListResponses.MAX_OFFSET) int offset,
+            @RequestParam(defaultValue = ListResponses.DEFAULT_LIMIT) @Min(1) @Max(ListResponses.MAX_LIMIT) int limit) {
+        List<MovieDTO> movies = movieService.searchMovies(q != null ? q : title, offset, limit);
         return ResponseEntity.ok(movies);
     }
 
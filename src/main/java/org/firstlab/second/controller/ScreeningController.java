@@ -1,22 +1,47 @@
 package org.firstlab.second.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.firstlab.second.dto.ScheduleSummaryDTO;
+import org.firstlab.second.dto.ScheduleTemplateDTO;
 import org.firstlab.second.dto.ScreeningDTO;
+import org.firstlab.second.dto.SeatMapDTO;
+import org.firstlab.second.service.ScheduleService;
 import org.firstlab.second.service.ScreeningService;
+import org.firstlab.second.service.SeatEventBroadcaster;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
 @RestController
+@Validated
 @RequestMapping("/api/screenings")
 public class ScreeningController {
 
+    static final String SEAT_CAPACITY_HEADER = "X-Seat-Capacity";
+
     private final ScreeningService screeningService;
+    private final ScheduleService scheduleService;
+    private final SeatEventBroadcaster seatEventBroadcaster;
+    private final ObjectMapper objectMapper;
 
-    public ScreeningController(ScreeningService screeningService) {
+    public ScreeningController(ScreeningService screeningService,
+                               ScheduleService scheduleService,
+                               SeatEventBroadcaster seatEventBroadcaster,
+                               ObjectMapper objectMapper) {
         this.screeningService = screeningService;
+        this.scheduleService = scheduleService;
+        this.seatEventBroadcaster = seatEventBroadcaster;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -25,10 +50,23 @@ public class ScreeningController {
         return new ResponseEntity<>(created, HttpStatus.CREATED);
     }
 
+    @PostMapping("/schedule")
+    public ResponseEntity<ScheduleSummaryDTO> createSchedule(@Valid @RequestBody ScheduleTemplateDTO template) {
+        ScheduleSummaryDTO summary = scheduleService.createSchedule(template);
+        return new ResponseEntity<>(summary, HttpStatus.CREATED);
+    }
+
     @GetMapping
-    public ResponseEntity<List<ScreeningDTO>> getAllScreenings() {
-        List<ScreeningDTO> screenings = screeningService.getAllScreenings();
-        return ResponseEntity.ok(screenings);
+    public ResponseEntity<List<ScreeningDTO>> getAllScreenings(
+            @RequestParam(defaultValue = "0") Long after,
+            @RequestParam(defaultValue = ListResponses.DEFAULT_LIMIT) @Min(1) @Max(ListResponses.MAX_LIMIT) int limit) {
+        List<ScreeningDTO> screenings = screeningService.getAllScreenings(after, limit);
+        return ListResponses.page(screenings, limit, ScreeningDTO::getId);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllScreenings() {
+        return ListResponses.ndjson(objectMapper, screeningService::streamAllScreenings);
     }
 
     @GetMapping("/{id}")
@@ -49,6 +87,31 @@ public class ScreeningController {
         return ResponseEntity.noContent().build();
     }
 
+    // Для опроса схемы зала: с If-None-Match и неизменившейся версией приходит 304 без тела
+    @GetMapping("/{id}/seatmap")
+    public ResponseEntity<SeatMapDTO> getSeatMap(@PathVariable Long id) {
+        SeatMapDTO seatMap = screeningService.getSeatMap(id);
+        return ResponseEntity.ok()
+                .eTag(seatMap.getVersion())
+                .cacheControl(CacheControl.noCache())
+                .body(seatMap);
+    }
+
+    @GetMapping(value = "/{id}/seatmap", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> getSeatMapBytes(@PathVariable Long id) {
+        SeatMapDTO seatMap = screeningService.getSeatMap(id);
+        return ResponseEntity.ok()
+                .eTag(seatMap.getVersion())
+                .cacheControl(CacheControl.noCache())
+                .header(SEAT_CAPACITY_HEADER, String.valueOf(seatMap.getCapacity()))
+                .body(seatMap.getSeats());
+    }
+
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToSeatEvents(@PathVariable Long id) {
+        return seatEventBroadcaster.subscribe(id);
+    }
+
     @GetMapping("/upcoming")
     public ResponseEntity<List<ScreeningDTO>> getUpcomingScreenings() {
         List<ScreeningDTO> screenings = screeningService.getUpcomingScreenings();
@@ -0,0 +1,40 @@
+package org.firstlab.second.controller;
+
+import jakarta.validation.Valid;
+import org.firstlab.second.dto.SeatHoldDTO;
+import org.firstlab.second.dto.SeatHoldRequest;
+import org.firstlab.second.service.SeatHoldService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/holds")
+public class SeatHoldController {
+
+    private final SeatHoldService seatHoldService;
+
+    public SeatHoldController(SeatHoldService seatHoldService) {
+        this.seatHoldService = seatHoldService;
+    }
+
+    @PostMapping
+    public ResponseEntity<SeatHoldDTO> createHold(@Valid @RequestBody SeatHoldRequest request) {
+        SeatHoldDTO created = seatHoldService.createHold(request);
+        return new ResponseEntity<>(created, HttpStatus.CREATED);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<SeatHoldDTO> getHold(@PathVariable UUID id) {
+        SeatHoldDTO hold = seatHoldService.getHold(id);
+        return ResponseEntity.ok(hold);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> releaseHold(@PathVariable UUID id) {
+        seatHoldService.releaseHold(id);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,35 +1,110 @@
 package org.firstlab.second.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import org.firstlab.second.dto.BulkPurchaseRequest;
 import org.firstlab.second.dto.TicketDTO;
+import org.firstlab.second.service.IdempotencyService;
+import org.firstlab.second.service.SalesExportService;
 import org.firstlab.second.service.TicketService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
+@Validated
 @RequestMapping("/api/tickets")
 public class TicketController {
 
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final TicketService ticketService;
+    private final IdempotencyService idempotencyService;
+    private final SalesExportService salesExportService;
+    private final ObjectMapper objectMapper;
 
-    public TicketController(TicketService ticketService) {
+    public TicketController(TicketService ticketService, IdempotencyService idempotencyService,
+                            SalesExportService salesExportService, ObjectMapper objectMapper) {
         this.ticketService = ticketService;
+        this.idempotencyService = idempotencyService;
+        this.salesExportService = salesExportService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
-    public ResponseEntity<TicketDTO> createTicket(@Valid @RequestBody TicketDTO ticketDTO) {
+    public ResponseEntity<?> createTicket(@Valid @RequestBody TicketDTO ticketDTO,
+                                          @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey != null) {
+            return idempotent(idempotencyService.execute("tickets", idempotencyKey, ticketDTO,
+                    HttpStatus.CREATED.value(), () -> ticketService.createTicket(ticketDTO)));
+        }
         TicketDTO created = ticketService.createTicket(ticketDTO);
         return new ResponseEntity<>(created, HttpStatus.CREATED);
     }
 
     @GetMapping
-    public ResponseEntity<List<TicketDTO>> getAllTickets() {
-        List<TicketDTO> tickets = ticketService.getAllTickets();
-        return ResponseEntity.ok(tickets);
+    public ResponseEntity<List<TicketDTO>> getAllTickets(
+            @RequestParam(defaultValue = "0") Long after,
+            @RequestParam(defaultValue = ListResponses.DEFAULT_LIMIT) @Min(1) @Max(ListResponses.MAX_LIMIT) int limit,
+            @RequestParam(defaultValue = "true") boolean details) {
+        List<TicketDTO> tickets = ticketService.getAllTickets(after, limit, details);
+        return ListResponses.page(tickets, limit, TicketDTO::getId);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllTickets() {
+        return ListResponses.ndjson(objectMapper, ticketService::streamAllTickets);
+    }
+
+    /**
+     * Tickets of the screenings starting between {@code from} and {@code to} with price, movie and hall,
+     * streamed as CSV or NDJSON; with {@code gzip=true} the file is compressed while it is written.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportSales(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        if (from.isAfter(to)) {
+            throw new RuntimeException("Start of the period must not be after its end");
+        }
+        SalesExportService.Format exportFormat = SalesExportService.Format.of(format);
+        String fileName = "sales_" + from.toLocalDate() + "_" + to.toLocalDate() +
+                (exportFormat == SalesExportService.Format.CSV ? ".csv" : ".ndjson") + (gzip ? ".gz" : "");
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                try {
+                    salesExportService.exportSales(from, to, exportFormat, compressed);
+                } finally {
+                    // Архив дописывается и при ошибке, чтобы строка о неполной выгрузке была читаемой
+                    compressed.finish();
+                }
+            } else {
+                salesExportService.exportSales(from, to, exportFormat, out);
+            }
+        };
+        MediaType contentType = gzip ? MediaType.parseMediaType("application/gzip")
+                : exportFormat == SalesExportService.Format.CSV ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                : MediaType.APPLICATION_NDJSON;
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
     }
 
     @GetMapping("/{id}")
@@ -57,26 +132,41 @@ public class TicketController {
     }
 
     @GetMapping("/screening/{screeningId}")
-    public ResponseEntity<List<TicketDTO>> getTicketsByScreening(@PathVariable Long screeningId) {
-        List<TicketDTO> tickets = ticketService.getTicketsByScreening(screeningId);
+    public ResponseEntity<List<TicketDTO>> getTicketsByScreening(@PathVariable Long screeningId,
+                                                                 @RequestParam(defaultValue = "true") boolean details) {
+        List<TicketDTO> tickets = ticketService.getTicketsByScreening(screeningId, details);
         return ResponseEntity.ok(tickets);
     }
 
     @GetMapping("/customer/{customerId}")
-    public ResponseEntity<List<TicketDTO>> getTicketsByCustomer(@PathVariable Long customerId) {
-        List<TicketDTO> tickets = ticketService.getTicketsByCustomer(customerId);
+    public ResponseEntity<List<TicketDTO>> getTicketsByCustomer(@PathVariable Long customerId,
+                                                                @RequestParam(defaultValue = "true") boolean details) {
+        List<TicketDTO> tickets = ticketService.getTicketsByCustomer(customerId, details);
         return ResponseEntity.ok(tickets);
     }
 
     @GetMapping("/screening/{screeningId}/active")
-    public ResponseEntity<List<TicketDTO>> getActiveTicketsByScreening(@PathVariable Long screeningId) {
-        List<TicketDTO> tickets = ticketService.getActiveTicketsByScreening(screeningId);
+    public ResponseEntity<List<TicketDTO>> getActiveTicketsByScreening(@PathVariable Long screeningId,
+                                                                       @RequestParam(defaultValue = "true") boolean details) {
+        List<TicketDTO> tickets = ticketService.getActiveTicketsByScreening(screeningId, details);
         return ResponseEntity.ok(tickets);
     }
 
     @PostMapping("/bulk-purchase")
-    public ResponseEntity<List<TicketDTO>> bulkPurchaseTickets(@Valid @RequestBody BulkPurchaseRequest request) {
+    public ResponseEntity<?> bulkPurchaseTickets(@Valid @RequestBody BulkPurchaseRequest request,
+                                                 @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey != null) {
+            return idempotent(idempotencyService.execute("tickets/bulk-purchase", idempotencyKey, request,
+                    HttpStatus.CREATED.value(), () -> ticketService.bulkPurchaseTickets(request)));
+        }
         List<TicketDTO> tickets = ticketService.bulkPurchaseTickets(request);
         return new ResponseEntity<>(tickets, HttpStatus.CREATED);
     }
+
+    private static ResponseEntity<byte[]> idempotent(IdempotencyService.IdempotentResponse response) {
+        return ResponseEntity.status(response.status())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(REPLAYED_HEADER, String.valueOf(response.replayed()))
+                .body(response.body());
+    }
 }
@@ -0,0 +1,22 @@
+package org.firstlab.second.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BoxOfficeDTO {
+
+    // screening, movie, hall, day или total
+    private String dimension;
+    // ID сеанса, фильма или зала, дата для day
+    private String key;
+    private long screenings;
+    private long capacity;
+    private long ticketsSold;
+    private long cancellations;
+    private double revenue;
+    private double occupancyPercent;
+}
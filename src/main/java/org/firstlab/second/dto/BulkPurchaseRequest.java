@@ -1,9 +1,12 @@
 package org.firstlab.second.dto;
 
-import jakarta.validation.constraints.NotEmpty;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
 
 import java.util.List;
+import java.util.UUID;
 
 public class BulkPurchaseRequest {
 
@@ -13,9 +16,23 @@ public class BulkPurchaseRequest {
     @NotNull(message = "Customer ID cannot be null")
     private Long customerId;
 
-    @NotEmpty(message = "Seat numbers list cannot be empty")
     private List<Integer> seatNumbers;
 
+    // Вместо номеров мест: сколько соседних мест подобрать по схеме рядов зала
+    @Positive(message = "Seat count should be positive")
+    private Integer seatCount;
+
+    private String section;
+
+    private UUID holdId;
+
+    @JsonIgnore
+    @AssertTrue(message = "Either a non-empty seat numbers list or a seat count should be given, not both")
+    public boolean isSeatSelectionValid() {
+        boolean hasSeatNumbers = seatNumbers != null && !seatNumbers.isEmpty();
+        return hasSeatNumbers != (seatCount != null);
+    }
+
     public Long getScreeningId() {
         return screeningId;
     }
@@ -39,5 +56,29 @@ public class BulkPurchaseRequest {
     public void setSeatNumbers(List<Integer> seatNumbers) {
         this.seatNumbers = seatNumbers;
     }
+
+    public Integer getSeatCount() {
+        return seatCount;
+    }
+
+    public void setSeatCount(Integer seatCount) {
+        this.seatCount = seatCount;
+    }
+
+    public String getSection() {
+        return section;
+    }
+
+    public void setSection(String section) {
+        this.section = section;
+    }
+
+    public UUID getHoldId() {
+        return holdId;
+    }
+
+    public void setHoldId(UUID holdId) {
+        this.holdId = holdId;
+    }
 }
 
@@ -0,0 +1,19 @@
+package org.firstlab.second.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerStatsDTO {
+
+    private Long customerId;
+    // Активные (не отменённые) билеты
+    private int ticketCount;
+    // Сеансы, на которые у покупателя есть хотя бы один активный билет
+    private int visitCount;
+    private double totalSpent;
+    private String favoriteGenre;
+}
@@ -0,0 +1,21 @@
+package org.firstlab.second.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A screening fits into the slot if it starts no earlier than {@code start} and ends no later than {@code end}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FreeSlotDTO {
+
+    private LocalDateTime start;
+
+    // null - зал свободен до конца расписания
+    private LocalDateTime end;
+}
@@ -0,0 +1,20 @@
+package org.firstlab.second.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HallLayoutDTO {
+
+    private Long hallId;
+
+    @NotEmpty(message = "Layout should have at least one row")
+    private List<@Valid HallRowDTO> rows;
+}
@@ -0,0 +1,34 @@
+package org.firstlab.second.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HallRowDTO {
+
+    @NotBlank(message = "Row label cannot be empty")
+    private String label;
+
+    private String section;
+
+    // Занятость ряда хранится одним 64-битным словом
+    @NotNull(message = "Seats in row should be specified")
+    @Min(value = 1, message = "Row should have at least one seat")
+    @Max(value = 64, message = "Row can have at most 64 seats")
+    private Integer seats;
+
+    @NotNull(message = "Row quality should be specified")
+    @Positive(message = "Row quality should be positive")
+    private Double quality;
+
+    // Номер первого места ряда, вычисляется сервером
+    private Integer firstSeat;
+}
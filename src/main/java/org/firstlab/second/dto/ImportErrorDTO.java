@@ -0,0 +1,16 @@
+package org.firstlab.second.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportErrorDTO {
+
+    // Номер строки файла, с которой начинается запись
+    private int line;
+
+    private String message;
+}
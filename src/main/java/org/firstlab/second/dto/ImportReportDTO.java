@@ -0,0 +1,25 @@
+package org.firstlab.second.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportReportDTO {
+
+    private String target;
+    private long rowsRead;
+    private long imported;
+    private long failed;
+    private long elapsedMillis;
+
+    // false - файл не дочитан до конца из-за ошибки разбора
+    private boolean complete;
+
+    // Первые ошибки по строкам, их число ограничено cinema.import.max-reported-errors
+    private List<ImportErrorDTO> errors;
+}
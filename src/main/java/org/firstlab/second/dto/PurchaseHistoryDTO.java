@@ -0,0 +1,25 @@
+package org.firstlab.second.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PurchaseHistoryDTO {
+
+    private Long ticketId;
+    private Long screeningId;
+    private Integer seatNumber;
+    private LocalDateTime purchaseTime;
+    private Boolean isCancelled;
+    private LocalDateTime startTime;
+    private Double price;
+    private Long movieId;
+    private String movieTitle;
+    private Long hallId;
+    private String hallName;
+}
@@ -0,0 +1,22 @@
+package org.firstlab.second.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleSummaryDTO {
+
+    private int created;
+    private int skipped;
+    private LocalDateTime firstStart;
+    private LocalDateTime lastStart;
+
+    // Пропущенные сеансы, не больше первых 100
+    private List<String> conflicts;
+}
@@ -0,0 +1,44 @@
+package org.firstlab.second.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Screenings for every day from {@code from} to {@code to}, in every hall at every time. Movies take turns:
+ * the i-th hall at the j-th time of day shows movie (i + j) modulo the number of movies.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduleTemplateDTO {
+
+    @NotEmpty(message = "Movie IDs should be specified")
+    private List<@NotNull Long> movieIds;
+
+    @NotEmpty(message = "Hall IDs should be specified")
+    private List<@NotNull Long> hallIds;
+
+    @NotEmpty(message = "Times of day should be specified")
+    private List<@NotNull LocalTime> times;
+
+    @NotNull(message = "First day should be specified")
+    private LocalDate from;
+
+    @NotNull(message = "Last day should be specified")
+    private LocalDate to;
+
+    @NotNull(message = "Price should be specified")
+    @Positive(message = "Price should be positive")
+    private Double price;
+
+    // false - при любом пересечении ничего не создаётся, true - пересекающиеся сеансы пропускаются
+    private boolean skipConflicts;
+}
@@ -0,0 +1,20 @@
+package org.firstlab.second.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatAvailabilityDTO {
+
+    private Long screeningId;
+    private int availableSeats;
+
+    // Изменения с предыдущего события; в первом событии после подписки пустые
+    private List<Integer> taken;
+    private List<Integer> released;
+}
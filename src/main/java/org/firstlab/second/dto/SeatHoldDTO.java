@@ -0,0 +1,21 @@
+package org.firstlab.second.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatHoldDTO {
+
+    private UUID id;
+    private Long screeningId;
+    private Long customerId;
+    private List<Integer> seatNumbers;
+    private LocalDateTime expiresAt;
+}
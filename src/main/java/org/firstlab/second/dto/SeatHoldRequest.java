@@ -0,0 +1,31 @@
+package org.firstlab.second.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatHoldRequest {
+
+    @NotNull(message = "Screening ID cannot be null")
+    private Long screeningId;
+
+    @NotNull(message = "Customer ID cannot be null")
+    private Long customerId;
+
+    @NotEmpty(message = "Seat numbers list cannot be empty")
+    private List<@NotNull(message = "Seat number cannot be null") Integer> seatNumbers;
+
+    // Не указано — берётся cinema.holds.default-minutes
+    @Min(value = 1, message = "Hold should last at least 1 minute")
+    @Max(value = 30, message = "Hold cannot last longer than 30 minutes")
+    private Integer minutes;
+}
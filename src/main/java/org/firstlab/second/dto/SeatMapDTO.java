@@ -0,0 +1,19 @@
+package org.firstlab.second.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatMapDTO {
+
+    private Long screeningId;
+    private int capacity;
+    private int occupiedSeats;
+    private String version;
+
+    // Занятые места битами: место n — бит (n - 1) % 8 байта (n - 1) / 8; в JSON приходит строкой base64
+    private byte[] seats;
+}
@@ -7,6 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.UUID;
 
 @Data
 @NoArgsConstructor
@@ -29,6 +30,9 @@ public class TicketDTO {
 
     private Boolean isCancelled;
 
+    // Удержание, из которого покупается место (необязательно)
+    private UUID holdId;
+
     // Для ответа с полными данными
     private ScreeningDTO screening;
     private CustomerDTO customer;
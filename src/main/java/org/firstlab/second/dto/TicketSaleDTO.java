@@ -0,0 +1,26 @@
+package org.firstlab.second.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketSaleDTO {
+
+    private Long ticketId;
+    private LocalDateTime purchaseTime;
+    private Boolean isCancelled;
+    private Integer seatNumber;
+    private Long customerId;
+    private Long screeningId;
+    private LocalDateTime startTime;
+    private Double price;
+    private Long movieId;
+    private String movieTitle;
+    private Long hallId;
+    private String hallName;
+}
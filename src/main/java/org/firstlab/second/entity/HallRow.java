@@ -0,0 +1,42 @@
+package org.firstlab.second.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Entity
+@Table(name = "hall_rows")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HallRow {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "hall_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Hall hall;
+
+    // Порядок ряда в зале: места нумеруются подряд по рядам в этом порядке
+    @Column(nullable = false)
+    private Integer rowIndex;
+
+    @Column(nullable = false)
+    private String label;
+
+    private String section;
+
+    @Column(nullable = false)
+    private Integer seats;
+
+    // Чем больше, тем лучше места в ряду
+    @Column(nullable = false)
+    private Double quality;
+}
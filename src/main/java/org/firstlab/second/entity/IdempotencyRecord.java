@@ -0,0 +1,38 @@
+package org.firstlab.second.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Response of a request sent with an Idempotency-Key, shared between instances.
+ * A row without a status belongs to a request that is still being processed, as long as its claim
+ * is younger than the lease.
+ */
+@Entity
+@Table(name = "idempotency_keys")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    // scope:key
+    @Id
+    private String id;
+
+    @Column(nullable = false)
+    private String fingerprint;
+
+    private Integer status;
+
+    private byte[] responseBody;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime claimedAt;
+}
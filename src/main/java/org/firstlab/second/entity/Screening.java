@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
@@ -15,18 +17,25 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class Screening {
 
+    // Идентификаторы выдаются пачками по 50, так что вставки сеансов объединяются в JDBC batch
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "screening_seq")
+    @SequenceGenerator(name = "screening_seq", sequenceName = "screening_seq", allocationSize = 50)
     private Long id;
 
+    // Связи ленивые: списки, которым нужны фильм и зал, подгружают их через @EntityGraph
     @NotNull(message = "Movie should be valid")
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "movie_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Movie movie;
 
     @NotNull(message = "Hall should be valid")
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "hall_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Hall hall;
 
     @NotNull(message = "Time should be valid")
@@ -37,7 +46,8 @@ public class Screening {
     @Column(nullable = false)
     private Double price;
 
-    @Column(nullable = false)
+    // Меняется только атомарными UPDATE из ScreeningRepository (takeSeats/returnSeats)
+    @Column(nullable = false, updatable = false)
     private Integer availableSeats;
 
     @PrePersist
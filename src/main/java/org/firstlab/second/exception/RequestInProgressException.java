@@ -0,0 +1,12 @@
+package org.firstlab.second.exception;
+
+/**
+ * A request with the same Idempotency-Key is still being processed. Answered with 409 Conflict,
+ * the client should retry later.
+ */
+public class RequestInProgressException extends RuntimeException {
+
+    public RequestInProgressException(String message) {
+        super(message);
+    }
+}
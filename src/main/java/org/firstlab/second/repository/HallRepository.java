@@ -1,13 +1,29 @@
 package org.firstlab.second.repository;
 
+import jakarta.persistence.QueryHint;
 import org.firstlab.second.entity.Hall;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface HallRepository extends JpaRepository<Hall, Long> {
     Optional<Hall> findByName(String name);
+
+    List<Hall> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT h FROM Hall h ORDER BY h.id")
+    Stream<Hall> streamAll();
 }
 
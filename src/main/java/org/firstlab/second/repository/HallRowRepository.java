@@ -0,0 +1,23 @@
+package org.firstlab.second.repository;
+
+import org.firstlab.second.entity.HallRow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface HallRowRepository extends JpaRepository<HallRow, Long> {
+
+    List<HallRow> findByHallIdOrderByRowIndexAsc(Long hallId);
+
+    @Query("SELECT COALESCE(SUM(r.seats), 0) FROM HallRow r WHERE r.hall.id = :hallId")
+    long sumSeatsByHallId(@Param("hallId") Long hallId);
+
+    @Modifying
+    @Query("DELETE FROM HallRow r WHERE r.hall.id = :hallId")
+    int deleteByHallId(@Param("hallId") Long hallId);
+}
@@ -0,0 +1,12 @@
+package org.firstlab.second.repository;
+
+/**
+ * Active ticket of a customer with the price and genre of its screening.
+ */
+public record PurchasedSeat(
+        Long screeningId,
+        Double price,
+        String genre,
+        Integer seatNumber
+) {
+}
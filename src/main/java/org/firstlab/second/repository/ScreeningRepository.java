@@ -1,21 +1,80 @@
 package org.firstlab.second.repository;
 
+import jakarta.persistence.QueryHint;
 import org.firstlab.second.entity.Screening;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ScreeningRepository extends JpaRepository<Screening, Long> {
+
+    @Override
+    @EntityGraph(attributePaths = {"movie", "hall"})
+    List<Screening> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = {"movie", "hall"})
+    Optional<Screening> findById(Long id);
+
+    @EntityGraph(attributePaths = {"movie", "hall"})
+    List<Screening> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @EntityGraph(attributePaths = {"movie", "hall"})
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT s FROM Screening s ORDER BY s.id")
+    Stream<Screening> streamAll();
+
+    @EntityGraph(attributePaths = {"movie", "hall"})
     List<Screening> findByMovieId(Long movieId);
+
+    @EntityGraph(attributePaths = {"movie", "hall"})
     List<Screening> findByHallId(Long hallId);
+
+    @EntityGraph(attributePaths = {"movie", "hall"})
     List<Screening> findByStartTimeBetween(LocalDateTime start, LocalDateTime end);
 
+    @EntityGraph(attributePaths = {"movie", "hall"})
     @Query("SELECT s FROM Screening s WHERE s.startTime > :now ORDER BY s.startTime")
     List<Screening> findUpcomingScreenings(@Param("now") LocalDateTime now);
+
+    @Query("SELECT new org.firstlab.second.repository.ScreeningSummary(" +
+            "s.id, s.movie.id, s.hall.id, s.startTime, s.price, s.movie.genre, s.hall.capacity) " +
+            "FROM Screening s WHERE s.id = :id")
+    Optional<ScreeningSummary> findSummaryById(@Param("id") Long id);
+
+    @Query("SELECT new org.firstlab.second.repository.ScreeningSummary(" +
+            "s.id, s.movie.id, s.hall.id, s.startTime, s.price, s.movie.genre, s.hall.capacity) FROM Screening s")
+    List<ScreeningSummary> findAllSummaries();
+
+    @Query("SELECT new org.firstlab.second.repository.ScreeningSlot(" +
+            "s.id, s.movie.id, s.hall.id, s.startTime, s.movie.durationMinutes) FROM Screening s")
+    List<ScreeningSlot> findAllSlots();
+
+    /**
+     * Takes seats off the counter only if enough are left. Returns 0 when they are not.
+     */
+    @Modifying
+    @Query(value = "UPDATE screenings SET available_seats = available_seats - :seats " +
+            "WHERE id = :id AND available_seats >= :seats", nativeQuery = true)
+    int takeSeats(@Param("id") Long id, @Param("seats") int seats);
+
+    @Modifying
+    @Query(value = "UPDATE screenings SET available_seats = available_seats + :seats WHERE id = :id", nativeQuery = true)
+    int returnSeats(@Param("id") Long id, @Param("seats") int seats);
 }
 
@@ -0,0 +1,15 @@
+package org.firstlab.second.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * When a screening occupies its hall: start time and the movie duration.
+ */
+public record ScreeningSlot(
+        Long id,
+        Long movieId,
+        Long hallId,
+        LocalDateTime startTime,
+        Integer durationMinutes
+) {
+}
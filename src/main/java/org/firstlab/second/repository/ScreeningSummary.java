@@ -0,0 +1,18 @@
+package org.firstlab.second.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Screening attributes that sales are counted against: price, movie genre and hall capacity,
+ * read with one join instead of loading the entity graph.
+ */
+public record ScreeningSummary(
+        Long id,
+        Long movieId,
+        Long hallId,
+        LocalDateTime startTime,
+        Double price,
+        String genre,
+        Integer capacity
+) {
+}
@@ -0,0 +1,11 @@
+package org.firstlab.second.repository;
+
+/**
+ * Number of active and cancelled tickets of a screening.
+ */
+public record ScreeningTicketCount(
+        Long screeningId,
+        Long activeTickets,
+        Long cancelledTickets
+) {
+}
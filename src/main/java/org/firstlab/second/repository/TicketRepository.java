@@ -1,20 +1,99 @@
 package org.firstlab.second.repository;
 
+import jakarta.persistence.QueryHint;
+import org.firstlab.second.dto.PurchaseHistoryDTO;
 import org.firstlab.second.entity.Ticket;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TicketRepository extends JpaRepository<Ticket, Long> {
+
+    // t.screening.id и t.customer.id читаются из внешних ключей, join не нужен
+    String SUMMARY = "new org.firstlab.second.repository.TicketSummary(" +
+            "t.id, t.screening.id, t.customer.id, t.seatNumber, t.purchaseTime, t.isCancelled)";
+
+    @Override
+    @EntityGraph(attributePaths = {"screening", "screening.movie", "screening.hall", "customer"})
+    List<Ticket> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = {"screening", "screening.movie", "screening.hall", "customer"})
+    Optional<Ticket> findById(Long id);
+
+    @EntityGraph(attributePaths = {"screening", "screening.movie", "screening.hall", "customer"})
+    List<Ticket> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @EntityGraph(attributePaths = {"screening", "screening.movie", "screening.hall", "customer"})
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM Ticket t ORDER BY t.id")
+    Stream<Ticket> streamAll();
+
+    @EntityGraph(attributePaths = {"screening", "screening.movie", "screening.hall", "customer"})
     List<Ticket> findByScreeningId(Long screeningId);
+
+    @EntityGraph(attributePaths = {"screening", "screening.movie", "screening.hall", "customer"})
     List<Ticket> findByCustomerId(Long customerId);
+
+    @EntityGraph(attributePaths = {"screening", "screening.movie", "screening.hall", "customer"})
     List<Ticket> findByScreeningIdAndIsCancelled(Long screeningId, Boolean isCancelled);
 
+    @Query("SELECT " + SUMMARY + " FROM Ticket t WHERE t.id > :after ORDER BY t.id")
+    List<TicketSummary> findSummariesByIdGreaterThan(@Param("after") Long after, Limit limit);
+
+    @Query("SELECT " + SUMMARY + " FROM Ticket t WHERE t.screening.id = :screeningId")
+    List<TicketSummary> findSummariesByScreeningId(@Param("screeningId") Long screeningId);
+
+    @Query("SELECT " + SUMMARY + " FROM Ticket t WHERE t.customer.id = :customerId")
+    List<TicketSummary> findSummariesByCustomerId(@Param("customerId") Long customerId);
+
+    @Query("SELECT " + SUMMARY + " FROM Ticket t WHERE t.screening.id = :screeningId AND t.isCancelled = false")
+    List<TicketSummary> findActiveSummariesByScreeningId(@Param("screeningId") Long screeningId);
+
+    @Query("SELECT new org.firstlab.second.dto.PurchaseHistoryDTO(" +
+            "t.id, s.id, t.seatNumber, t.purchaseTime, t.isCancelled, s.startTime, s.price, m.id, m.title, h.id, h.name) " +
+            "FROM Ticket t JOIN t.screening s JOIN s.movie m JOIN s.hall h " +
+            "WHERE t.customer.id = :customerId AND t.id > :after " +
+            "AND t.purchaseTime >= :from AND t.purchaseTime < :to ORDER BY t.id")
+    List<PurchaseHistoryDTO> findPurchaseHistory(@Param("customerId") Long customerId,
+                                                 @Param("after") Long after,
+                                                 @Param("from") LocalDateTime from,
+                                                 @Param("to") LocalDateTime to,
+                                                 Limit limit);
+
+    @Query("SELECT new org.firstlab.second.repository.PurchasedSeat(s.id, s.price, s.movie.genre, t.seatNumber) " +
+            "FROM Ticket t JOIN t.screening s WHERE t.customer.id = :customerId AND t.isCancelled = false")
+    List<PurchasedSeat> findActiveSeatsByCustomerId(@Param("customerId") Long customerId);
+
+    @Query("SELECT new org.firstlab.second.repository.ScreeningTicketCount(t.screening.id, " +
+            "SUM(CASE WHEN t.isCancelled = false THEN 1L ELSE 0L END), " +
+            "SUM(CASE WHEN t.isCancelled = true THEN 1L ELSE 0L END)) " +
+            "FROM Ticket t GROUP BY t.screening.id")
+    List<ScreeningTicketCount> countTicketsByScreening();
+
     @Query("SELECT COUNT(t) FROM Ticket t WHERE t.screening.id = :screeningId AND t.isCancelled = false")
     Long countActiveTicketsByScreeningId(@Param("screeningId") Long screeningId);
-}
 
+    @Query("SELECT t.seatNumber FROM Ticket t WHERE t.screening.id = :screeningId AND t.isCancelled = false")
+    List<Integer> findActiveSeatNumbersByScreeningId(@Param("screeningId") Long screeningId);
+
+    default int[] findActiveSeatNumbers(Long screeningId) {
+        return findActiveSeatNumbersByScreeningId(screeningId).stream()
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+}
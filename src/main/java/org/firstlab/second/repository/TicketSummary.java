@@ -0,0 +1,16 @@
+package org.firstlab.second.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ticket row without the screening and customer graphs, read straight from the tickets table.
+ */
+public record TicketSummary(
+        Long id,
+        Long screeningId,
+        Long customerId,
+        Integer seatNumber,
+        LocalDateTime purchaseTime,
+        Boolean isCancelled
+) {
+}
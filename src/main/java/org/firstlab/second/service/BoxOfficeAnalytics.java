@@ -0,0 +1,280 @@
+package org.firstlab.second.service;
+
+import io.micrometer.core.annotation.Timed;
+import org.firstlab.second.config.MetricsConfig;
+import org.firstlab.second.dto.BoxOfficeDTO;
+import org.firstlab.second.dto.ScreeningDTO;
+import org.firstlab.second.repository.ScreeningRepository;
+import org.firstlab.second.repository.ScreeningSummary;
+import org.firstlab.second.repository.ScreeningTicketCount;
+import org.firstlab.second.repository.TicketRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Tickets sold, cancellations, revenue and occupancy per screening, movie, hall and day, served from memory.
+ * <p>
+ * Rollups are rebuilt from the tables at startup and on demand, and in between follow committed
+ * {@link TicketEvent}s and screening changes. Every change of a screening's counters is applied to its movie,
+ * hall and day totals while the screening entry is locked, so the four levels always agree.
+ * Revenue is the screening price of every active ticket.
+ * <p>
+ * Only changes made through this instance are followed. Events committed while a rebuild reads the tables
+ * may be lost; the next rebuild picks them up.
+ */
+@Service
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+public class BoxOfficeAnalytics {
+
+    private final ScreeningRepository screeningRepository;
+    private final TicketRepository ticketRepository;
+    private volatile Rollups rollups = new Rollups(new ConcurrentHashMap<>(), new ConcurrentHashMap<>(),
+            new ConcurrentHashMap<>(), new ConcurrentSkipListMap<>());
+
+    public BoxOfficeAnalytics(ScreeningRepository screeningRepository, TicketRepository ticketRepository) {
+        this.screeningRepository = screeningRepository;
+        this.ticketRepository = ticketRepository;
+    }
+
+    public BoxOfficeDTO getScreening(Long screeningId) {
+        ScreeningRollup rollup = rollups.screenings().get(screeningId);
+        if (rollup == null) {
+            throw new RuntimeException("Screening with ID " + screeningId + " not found");
+        }
+        return toDTO("screening", screeningId.toString(), rollup.totals());
+    }
+
+    public List<BoxOfficeDTO> getMovies() {
+        return ranked("movie", rollups.movies());
+    }
+
+    public BoxOfficeDTO getMovie(Long movieId) {
+        return toDTO("movie", movieId.toString(), rollups.movies().getOrDefault(movieId, Totals.EMPTY));
+    }
+
+    public List<BoxOfficeDTO> getHalls() {
+        return ranked("hall", rollups.halls());
+    }
+
+    public BoxOfficeDTO getHall(Long hallId) {
+        return toDTO("hall", hallId.toString(), rollups.halls().getOrDefault(hallId, Totals.EMPTY));
+    }
+
+    /**
+     * Days from {@code from} to {@code to} inclusive that have screenings, in date order.
+     */
+    public List<BoxOfficeDTO> getDays(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new RuntimeException("Start of the period must not be after its end");
+        }
+        return rollups.days().subMap(from, true, to, true).entrySet().stream()
+                .map(entry -> toDTO("day", entry.getKey().toString(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public BoxOfficeDTO rebuild() {
+        Rollups rebuilt = load();
+        Totals total = rebuilt.movies().values().stream().reduce(Totals.EMPTY, Totals::plus);
+        return toDTO("total", null, total);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadRollups() {
+        load();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTicketEvent(TicketEvent event) {
+        int seats = event.seatNumbers().size();
+        switch (event.kind()) {
+            case SOLD -> apply(event.screeningId(), seats, 0);
+            case RELEASED -> apply(event.screeningId(), -seats, 0);
+            case CANCELLED -> apply(event.screeningId(), -seats, seats);
+            default -> {
+                // Holds don't change sales
+            }
+        }
+    }
+
+    void putScreening(ScreeningDTO screening) {
+        putScreenings(List.of(screening));
+    }
+
+    void putScreenings(Collection<ScreeningDTO> screenings) {
+        List<ScreeningSummary> summaries = screenings.stream()
+                .map(screening -> new ScreeningSummary(
+                        screening.getId(),
+                        screening.getMovieId(),
+                        screening.getHallId(),
+                        screening.getStartTime(),
+                        screening.getPrice(),
+                        screening.getMovie().getGenre(),
+                        screening.getHall().getCapacity()
+                ))
+                .toList();
+        TransactionHooks.afterCommit(() -> summaries.forEach(summary -> rollups.put(summary)));
+    }
+
+    void removeScreening(Long screeningId) {
+        TransactionHooks.afterCommit(() -> rollups.remove(screeningId));
+    }
+
+    /**
+     * Recomputes every rollup from the tables. Tickets are counted per screening by the database,
+     * the screening counts are then grouped in parallel.
+     */
+    private synchronized Rollups load() {
+        Map<Long, ScreeningTicketCount> counts = ticketRepository.countTicketsByScreening().stream()
+                .collect(Collectors.toMap(ScreeningTicketCount::screeningId, Function.identity()));
+
+        ConcurrentMap<Long, ScreeningRollup> screenings = screeningRepository.findAllSummaries().parallelStream()
+                .map(screening -> {
+                    ScreeningTicketCount count = counts.get(screening.id());
+                    return count == null
+                            ? new ScreeningRollup(screening, 0, 0)
+                            : new ScreeningRollup(screening, count.activeTickets(), count.cancelledTickets());
+                })
+                .collect(Collectors.toConcurrentMap(rollup -> rollup.screening().id(), Function.identity()));
+
+        Rollups rebuilt = new Rollups(
+                screenings,
+                groupBy(screenings, ScreeningSummary::movieId),
+                groupBy(screenings, ScreeningSummary::hallId),
+                new ConcurrentSkipListMap<>(groupBy(screenings, screening -> screening.startTime().toLocalDate()))
+        );
+        rollups = rebuilt;
+        return rebuilt;
+    }
+
+    private void apply(Long screeningId, long sold, long cancelled) {
+        Rollups current = rollups;
+        if (!current.screenings().containsKey(screeningId)) {
+            // Сеанс создан на другом экземпляре или после загрузки: подтягиваем его из базы
+            Optional<ScreeningSummary> screening = screeningRepository.findSummaryById(screeningId);
+            if (screening.isEmpty()) {
+                return;
+            }
+            current.put(screening.get());
+        }
+        current.screenings().computeIfPresent(screeningId, (id, rollup) -> {
+            ScreeningRollup updated = new ScreeningRollup(rollup.screening(),
+                    rollup.sold() + sold, rollup.cancelled() + cancelled);
+            current.addToGroups(rollup.screening(), updated.totals().minus(rollup.totals()));
+            return updated;
+        });
+    }
+
+    private static <K> ConcurrentMap<K, Totals> groupBy(ConcurrentMap<Long, ScreeningRollup> screenings,
+                                                        Function<ScreeningSummary, K> key) {
+        return screenings.values().parallelStream()
+                .collect(Collectors.groupingByConcurrent(rollup -> key.apply(rollup.screening()),
+                        Collectors.reducing(Totals.EMPTY, ScreeningRollup::totals, Totals::plus)));
+    }
+
+    private static List<BoxOfficeDTO> ranked(String dimension, Map<Long, Totals> totals) {
+        return totals.entrySet().stream()
+                .sorted(Map.Entry.<Long, Totals>comparingByValue(Comparator.comparingLong(Totals::revenueCents))
+                        .reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .map(entry -> toDTO(dimension, entry.getKey().toString(), entry.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    private static BoxOfficeDTO toDTO(String dimension, String key, Totals totals) {
+        double occupancy = totals.capacity() == 0 ? 0 : Math.round(totals.ticketsSold() * 10000.0 / totals.capacity()) / 100.0;
+        return new BoxOfficeDTO(
+                dimension,
+                key,
+                totals.screenings(),
+                totals.capacity(),
+                totals.ticketsSold(),
+                totals.cancellations(),
+                totals.revenueCents() / 100.0,
+                occupancy
+        );
+    }
+
+    private record Rollups(ConcurrentMap<Long, ScreeningRollup> screenings,
+                           ConcurrentMap<Long, Totals> movies,
+                           ConcurrentMap<Long, Totals> halls,
+                           ConcurrentNavigableMap<LocalDate, Totals> days) {
+
+        /**
+         * Adds a screening or moves an existing one to its new movie, hall, day or price, keeping its counts.
+         */
+        void put(ScreeningSummary screening) {
+            screenings.compute(screening.id(), (id, existing) -> {
+                ScreeningRollup rollup = existing == null
+                        ? new ScreeningRollup(screening, 0, 0)
+                        : new ScreeningRollup(screening, existing.sold(), existing.cancelled());
+                if (existing != null) {
+                    addToGroups(existing.screening(), Totals.EMPTY.minus(existing.totals()));
+                }
+                addToGroups(screening, rollup.totals());
+                return rollup;
+            });
+        }
+
+        void remove(Long screeningId) {
+            screenings.computeIfPresent(screeningId, (id, existing) -> {
+                addToGroups(existing.screening(), Totals.EMPTY.minus(existing.totals()));
+                return null;
+            });
+        }
+
+        void addToGroups(ScreeningSummary screening, Totals delta) {
+            merge(movies, screening.movieId(), delta);
+            merge(halls, screening.hallId(), delta);
+            merge(days, screening.startTime().toLocalDate(), delta);
+        }
+
+        private static <K> void merge(ConcurrentMap<K, Totals> totals, K key, Totals delta) {
+            totals.merge(key, delta, (current, change) -> {
+                Totals sum = current.plus(change);
+                return sum.screenings() == 0 ? null : sum;
+            });
+        }
+    }
+
+    private record ScreeningRollup(ScreeningSummary screening, long sold, long cancelled) {
+
+        Totals totals() {
+            return new Totals(1, screening.capacity(), sold, cancelled, sold * Math.round(screening.price() * 100));
+        }
+    }
+
+    private record Totals(long screenings, long capacity, long ticketsSold, long cancellations, long revenueCents) {
+
+        static final Totals EMPTY = new Totals(0, 0, 0, 0, 0);
+
+        Totals plus(Totals other) {
+            return new Totals(screenings + other.screenings, capacity + other.capacity,
+                    ticketsSold + other.ticketsSold, cancellations + other.cancellations,
+                    revenueCents + other.revenueCents);
+        }
+
+        Totals minus(Totals other) {
+            return new Totals(screenings - other.screenings, capacity - other.capacity,
+                    ticketsSold - other.ticketsSold, cancellations - other.cancellations,
+                    revenueCents - other.revenueCents);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.firstlab.second.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.firstlab.second.config.ImportModeEnvironmentPostProcessor;
+import org.firstlab.second.dto.ImportReportDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Imports a CSV file at startup, for loading data from the command line:
+ * {@code --cinema.import.target=customers --cinema.import.file=customers.csv}. The application then starts
+ * without the web server (see {@link ImportModeEnvironmentPostProcessor}) and exits once the report is
+ * printed as JSON, with code 0 when every row was imported and 1 otherwise.
+ */
+@Component
+@ConditionalOnProperty(name = ImportModeEnvironmentPostProcessor.IMPORT_FILE_PROPERTY)
+public class CsvImportRunner implements ApplicationRunner, ExitCodeGenerator {
+
+    private final CsvImportService csvImportService;
+    private final ObjectMapper objectMapper;
+    private final String target;
+    private final Path file;
+    private volatile int exitCode = 1;
+
+    public CsvImportRunner(CsvImportService csvImportService,
+                           ObjectMapper objectMapper,
+                           @Value("${cinema.import.target}") String target,
+                           @Value("${cinema.import.file}") Path file) {
+        this.csvImportService = csvImportService;
+        this.objectMapper = objectMapper;
+        this.target = target;
+        this.file = file;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        ImportReportDTO report;
+        try (InputStream input = Files.newInputStream(file)) {
+            report = csvImportService.importCsv(target, input);
+        }
+        System.out.println(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report));
+        exitCode = report.isComplete() && report.getFailed() == 0 ? 0 : 1;
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+}
@@ -0,0 +1,261 @@
+package org.firstlab.second.service;
+
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.firstlab.second.config.MetricsConfig;
+import org.firstlab.second.dto.ImportErrorDTO;
+import org.firstlab.second.dto.ImportReportDTO;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Loads movies, customers or halls from CSV.
+ * <p>
+ * The input is read one record at a time and written in batches, so memory does not grow with the file.
+ * Every record is checked with the constraints of the DTO the REST API accepts. Values that must be unique are
+ * checked against the batch and the table before writing. A batch is written with COPY on PostgreSQL and with a
+ * JDBC batch insert elsewhere, each batch in its own transaction. If a batch is rejected by the database anyway,
+ * its rows are written one by one to find the rows at fault.
+ * <p>
+ * Rows are written straight to the tables: caches and in-memory indexes keyed by id don't know the new rows
+ * yet, which is fine as they load missing entries on demand. Imported movies, those with ids above the last
+ * one before the import, are added to the movie search index afterwards.
+ */
+@Service
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+public class CsvImportService {
+
+    private static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final MovieService movieService;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public CsvImportService(JdbcTemplate jdbcTemplate,
+                            NamedParameterJdbcTemplate namedJdbcTemplate,
+                            TransactionTemplate transactionTemplate,
+                            Validator validator,
+                            MovieService movieService,
+                            @Value("${cinema.import.batch-size}") int batchSize,
+                            @Value("${cinema.import.max-reported-errors}") int maxReportedErrors) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.movieService = movieService;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Imports the CSV into the named target (movies, customers or halls). The first record is the header
+     * with the DTO field names. The input is read as UTF-8 and is not closed.
+     */
+    public ImportReportDTO importCsv(String target, InputStream input) {
+        return importRows(ImportTarget.of(target), input);
+    }
+
+    private <T> ImportReportDTO importRows(ImportTarget<T> target, InputStream input) {
+        long started = System.nanoTime();
+        Report report = new Report(maxReportedErrors);
+        CsvReader reader = new CsvReader(new InputStreamReader(input, StandardCharsets.UTF_8), MAX_RECORD_LENGTH);
+        List<ParsedRow<T>> batch = new ArrayList<>(batchSize);
+        boolean complete = true;
+        Long lastMovieId = target == ImportTarget.MOVIES ? movieService.getLastMovieId() : null;
+
+        try {
+            List<String> header = reader.readRecord();
+            if (header == null) {
+                throw new RuntimeException("CSV file is empty");
+            }
+            int[] positions = target.positions(header);
+
+            List<String> record;
+            while ((record = reader.readRecord()) != null) {
+                report.rowsRead++;
+                int line = reader.recordLine();
+                if (record.size() != header.size()) {
+                    report.fail(line, "Row has " + record.size() + " values, header has " + header.size());
+                    continue;
+                }
+                T dto;
+                try {
+                    dto = target.parser().apply(new ImportTarget.Row(record, positions, target.fields()));
+                } catch (IllegalArgumentException ex) {
+                    report.fail(line, ex.getMessage());
+                    continue;
+                }
+                Set<ConstraintViolation<T>> violations = validator.validate(dto);
+                if (!violations.isEmpty()) {
+                    report.fail(line, violations.stream()
+                            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                            .sorted()
+                            .collect(Collectors.joining("; ")));
+                    continue;
+                }
+                batch.add(new ParsedRow<>(line, dto));
+                if (batch.size() == batchSize) {
+                    write(target, batch, report);
+                    batch.clear();
+                }
+            }
+        } catch (IOException ex) {
+            // Дальше файл не разобрать: записываем то, что уже прочитано, и сообщаем, где остановились
+            report.fail(reader.recordLine(), ex.getMessage());
+            complete = false;
+        }
+        if (!batch.isEmpty()) {
+            write(target, batch, report);
+        }
+
+        if (target == ImportTarget.MOVIES && report.imported > 0) {
+            movieService.indexMoviesAfter(lastMovieId);
+        }
+        return new ImportReportDTO(target.name(), report.rowsRead, report.imported, report.failed,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), complete, report.errors);
+    }
+
+    private <T> void write(ImportTarget<T> target, List<ParsedRow<T>> batch, Report report) {
+        List<ParsedRow<T>> rows = dropDuplicates(target, batch, report);
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(target, rows));
+            report.imported += rows.size();
+        } catch (DataAccessException ex) {
+            // Пачка отклонена целиком (например, ключ занят параллельной записью): пишем по одной строке
+            for (ParsedRow<T> row : rows) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(target, List.of(row)));
+                    report.imported++;
+                } catch (DataAccessException rowEx) {
+                    report.fail(row.line(), rowEx.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Rejects rows whose unique value repeats within the batch or is already in the table.
+     * Earlier batches are committed by then, so repeats across batches are found in the table.
+     */
+    private <T> List<ParsedRow<T>> dropDuplicates(ImportTarget<T> target, List<ParsedRow<T>> batch, Report report) {
+        if (target.uniqueColumn() == null) {
+            return batch;
+        }
+        Set<String> keys = batch.stream()
+                .map(row -> target.uniqueKey().apply(row.dto()))
+                .collect(Collectors.toSet());
+        Set<String> existing = new HashSet<>(namedJdbcTemplate.queryForList(
+                "SELECT " + target.uniqueColumn() + " FROM " + target.table() +
+                        " WHERE " + target.uniqueColumn() + " IN (:keys)",
+                Map.of("keys", keys), String.class));
+
+        List<ParsedRow<T>> rows = new ArrayList<>(batch.size());
+        Set<String> seen = new HashSet<>();
+        for (ParsedRow<T> row : batch) {
+            String key = target.uniqueKey().apply(row.dto());
+            if (existing.contains(key)) {
+                report.fail(row.line(), target.uniqueColumn() + " " + key + " already exists");
+            } else if (!seen.add(key)) {
+                report.fail(row.line(), target.uniqueColumn() + " " + key + " appears more than once in the file");
+            } else {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private <T> void insert(ImportTarget<T> target, List<ParsedRow<T>> rows) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            if (connection.isWrapperFor(PGConnection.class)) {
+                String csv = toCsv(target, rows);
+                try {
+                    connection.unwrap(PGConnection.class).getCopyAPI().copyIn(target.copySql(), new StringReader(csv));
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex);
+                }
+                return null;
+            }
+            try (PreparedStatement statement = connection.prepareStatement(target.insertSql())) {
+                for (ParsedRow<T> row : rows) {
+                    List<Object> values = target.values().apply(row.dto());
+                    for (int i = 0; i < values.size(); i++) {
+                        statement.setObject(i + 1, values.get(i));
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    private static <T> String toCsv(ImportTarget<T> target, List<ParsedRow<T>> rows) {
+        StringBuilder csv = new StringBuilder(rows.size() * 128);
+        for (ParsedRow<T> row : rows) {
+            List<Object> values = target.values().apply(row.dto());
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) {
+                    csv.append(',');
+                }
+                // Пустое значение без кавычек COPY читает как NULL
+                Object value = values.get(i);
+                if (value != null) {
+                    csv.append('"').append(value.toString().replace("\"", "\"\"")).append('"');
+                }
+            }
+            csv.append('\n');
+        }
+        return csv.toString();
+    }
+
+    private record ParsedRow<T>(int line, T dto) {
+    }
+
+    private static final class Report {
+
+        private final int maxErrors;
+        private final List<ImportErrorDTO> errors = new ArrayList<>();
+        private long rowsRead;
+        private long imported;
+        private long failed;
+
+        Report(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        void fail(int line, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new ImportErrorDTO(line, message));
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package org.firstlab.second.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads CSV (RFC 4180) one record at a time: comma separated, fields optionally in double quotes,
+ * a quote inside a quoted field doubled, line breaks allowed in quoted fields. Only the current record
+ * is held in memory and it may not be longer than {@code maxRecordLength} characters.
+ */
+final class CsvReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader in;
+    private final int maxRecordLength;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private int line = 1;
+    private int recordLine;
+    private boolean started;
+
+    CsvReader(Reader in, int maxRecordLength) {
+        this.in = in;
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    /**
+     * Line of the file the last record started on, counting from 1.
+     */
+    int recordLine() {
+        return recordLine;
+    }
+
+    /**
+     * Returns the next record, or null at the end of the input. Empty lines are skipped.
+     */
+    List<String> readRecord() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            if (!started && c == '\uFEFF') {
+                // Метка порядка байтов, которую добавляет Excel
+                started = true;
+                continue;
+            }
+            started = true;
+            if (c == '\r' || c == '\n') {
+                skipLineBreak(c);
+                continue;
+            }
+            recordLine = line;
+            return parseRecord(c);
+        }
+    }
+
+    private List<String> parseRecord(int first) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int length = 0;
+        boolean quoted = false;
+        boolean inQuotes = false;
+        int c = first;
+
+        while (true) {
+            if (++length > maxRecordLength) {
+                throw new IOException("Record on line " + recordLine + " is longer than " + maxRecordLength + " characters");
+            }
+            if (inQuotes) {
+                if (c == -1) {
+                    throw new IOException("Quoted field starting on line " + recordLine + " is not closed");
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        inQuotes = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n' || c == '\r' && peek() != '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                quoted = false;
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c != -1) {
+                    skipLineBreak(c);
+                }
+                fields.add(field.toString());
+                return fields;
+            } else if (c == '"' && field.isEmpty() && !quoted) {
+                quoted = true;
+                inQuotes = true;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private void skipLineBreak(int c) throws IOException {
+        if (c == '\r' && peek() == '\n') {
+            read();
+        }
+        line++;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,208 @@
+package org.firstlab.second.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.annotation.Timed;
+import org.firstlab.second.config.MetricsConfig;
+import org.firstlab.second.dto.CustomerStatsDTO;
+import org.firstlab.second.dto.PurchaseHistoryDTO;
+import org.firstlab.second.dto.ScreeningDTO;
+import org.firstlab.second.repository.CustomerRepository;
+import org.firstlab.second.repository.PurchasedSeat;
+import org.firstlab.second.repository.ScreeningRepository;
+import org.firstlab.second.repository.ScreeningSummary;
+import org.firstlab.second.repository.TicketRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Purchase history of a customer and aggregates over it: tickets, visits, spend and favorite genre.
+ * <p>
+ * Aggregates are built from the tables on first request and then kept up to date from committed
+ * {@link TicketEvent}s. They track the active seats of every visited screening, so an event that is already
+ * part of the loaded state changes nothing. Spend is counted at the current screening price, like the
+ * box-office rollups: a screening update re-prices the visits already counted, so a reloaded aggregate
+ * gives the same figures.
+ */
+@Service
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+public class CustomerHistoryService {
+
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private final TicketRepository ticketRepository;
+    private final ScreeningRepository screeningRepository;
+    private final CustomerRepository customerRepository;
+    private final Cache<Long, CustomerStats> stats;
+    private final Cache<Long, ScreeningSummary> screenings;
+
+    public CustomerHistoryService(TicketRepository ticketRepository,
+                                  ScreeningRepository screeningRepository,
+                                  CustomerRepository customerRepository,
+                                  @Value("${cinema.customer-stats.spec}") String statsSpec,
+                                  @Value("${cinema.customer-stats.screening-spec}") String screeningSpec) {
+        this.ticketRepository = ticketRepository;
+        this.screeningRepository = screeningRepository;
+        this.customerRepository = customerRepository;
+        this.stats = Caffeine.from(statsSpec).build();
+        this.screenings = Caffeine.from(screeningSpec).build();
+    }
+
+    @Transactional(readOnly = true)
+    public List<PurchaseHistoryDTO> getPurchaseHistory(Long customerId, LocalDateTime from, LocalDateTime to,
+                                                       Long after, int limit) {
+        if (!customerRepository.existsById(customerId)) {
+            throw new RuntimeException("Customer with ID " + customerId + " not found");
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new RuntimeException("Start of the period must be before its end");
+        }
+        return ticketRepository.findPurchaseHistory(customerId, after,
+                from != null ? from : EARLIEST, to != null ? to : LATEST, Limit.of(limit));
+    }
+
+    @Transactional(readOnly = true)
+    public CustomerStatsDTO getCustomerStats(Long customerId) {
+        return stats.get(customerId, this::loadStats).toDTO();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTicketEvent(TicketEvent event) {
+        switch (event.kind()) {
+            case SOLD -> {
+                ScreeningSummary screening = screenings.get(event.screeningId(),
+                        id -> screeningRepository.findSummaryById(id).orElse(null));
+                if (screening == null) {
+                    return;
+                }
+                // computeIfPresent waits for a load of the same customer in progress, the seat sets absorb the overlap
+                stats.asMap().computeIfPresent(event.customerId(), (id, customer) -> {
+                    customer.add(screening.id(), screening.price(), screening.genre(), event.seatNumbers());
+                    return customer;
+                });
+            }
+            case RELEASED, CANCELLED -> stats.asMap().computeIfPresent(event.customerId(), (id, customer) -> {
+                customer.remove(event.screeningId(), event.seatNumbers());
+                return customer;
+            });
+            default -> {
+                // Holds are not purchases
+            }
+        }
+    }
+
+    /**
+     * Applies a screening's new price and genre once the update commits.
+     */
+    void refreshScreening(ScreeningDTO screening) {
+        TransactionHooks.afterCommit(() -> {
+            screenings.invalidate(screening.getId());
+            String genre = screening.getMovie() != null ? screening.getMovie().getGenre() : null;
+            stats.asMap().values().forEach(customer -> customer.reprice(screening.getId(), screening.getPrice(), genre));
+        });
+    }
+
+    private CustomerStats loadStats(Long customerId) {
+        if (!customerRepository.existsById(customerId)) {
+            throw new RuntimeException("Customer with ID " + customerId + " not found");
+        }
+        CustomerStats customer = new CustomerStats(customerId);
+        for (PurchasedSeat seat : ticketRepository.findActiveSeatsByCustomerId(customerId)) {
+            customer.add(seat.screeningId(), seat.price(), seat.genre(), List.of(seat.seatNumber()));
+        }
+        return customer;
+    }
+
+    private static final class CustomerStats {
+
+        private final Long customerId;
+        private final Map<Long, Visit> visits = new HashMap<>();
+        private final Map<String, Integer> ticketsByGenre = new HashMap<>();
+        private int ticketCount;
+        private BigDecimal totalSpent = BigDecimal.ZERO;
+
+        CustomerStats(Long customerId) {
+            this.customerId = customerId;
+        }
+
+        synchronized void add(Long screeningId, Double price, String genre, Collection<Integer> seatNumbers) {
+            Visit visit = visits.computeIfAbsent(screeningId, id -> new Visit(BigDecimal.valueOf(price), genre));
+            for (Integer seatNumber : seatNumbers) {
+                if (visit.seats.add(seatNumber)) {
+                    count(visit, 1);
+                }
+            }
+        }
+
+        synchronized void remove(Long screeningId, Collection<Integer> seatNumbers) {
+            Visit visit = visits.get(screeningId);
+            if (visit == null) {
+                return;
+            }
+            for (Integer seatNumber : seatNumbers) {
+                if (visit.seats.remove(seatNumber)) {
+                    count(visit, -1);
+                }
+            }
+            if (visit.seats.isEmpty()) {
+                visits.remove(screeningId);
+            }
+        }
+
+        synchronized void reprice(Long screeningId, Double price, String genre) {
+            Visit visit = visits.get(screeningId);
+            if (visit == null) {
+                return;
+            }
+            int seats = visit.seats.size();
+            count(visit, -seats);
+            Visit repriced = new Visit(BigDecimal.valueOf(price), genre);
+            repriced.seats.addAll(visit.seats);
+            visits.put(screeningId, repriced);
+            count(repriced, seats);
+        }
+
+        synchronized CustomerStatsDTO toDTO() {
+            String favoriteGenre = ticketsByGenre.entrySet().stream()
+                    .max(Map.Entry.<String, Integer>comparingByValue()
+                            .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                    .map(Map.Entry::getKey)
+                    .orElse(null);
+            return new CustomerStatsDTO(customerId, ticketCount, visits.size(), totalSpent.doubleValue(), favoriteGenre);
+        }
+
+        private void count(Visit visit, int delta) {
+            ticketCount += delta;
+            totalSpent = totalSpent.add(visit.price.multiply(BigDecimal.valueOf(delta)));
+            if (visit.genre != null) {
+                ticketsByGenre.merge(visit.genre, delta, (a, b) -> a + b == 0 ? null : a + b);
+            }
+        }
+    }
+
+    private static final class Visit {
+
+        private final BigDecimal price;
+        private final String genre;
+        private final Set<Integer> seats = new HashSet<>();
+
+        Visit(BigDecimal price, String genre) {
+            this.price = price;
+            this.genre = genre;
+        }
+    }
+}
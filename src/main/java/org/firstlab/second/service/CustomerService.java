@@ -1,22 +1,30 @@
 package org.firstlab.second.service;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.firstlab.second.config.MetricsConfig;
 import org.firstlab.second.dto.CustomerDTO;
 import org.firstlab.second.entity.Customer;
 import org.firstlab.second.repository.CustomerRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
 public class CustomerService {
 
     private final CustomerRepository customerRepository;
+    private final EntityManager entityManager;
 
-    public CustomerService(CustomerRepository customerRepository) {
+    public CustomerService(CustomerRepository customerRepository, EntityManager entityManager) {
         this.customerRepository = customerRepository;
+        this.entityManager = entityManager;
     }
 
     public CustomerDTO createCustomer(CustomerDTO customerDTO) {
@@ -25,12 +33,17 @@ public class CustomerService {
         return convertToDTO(savedCustomer);
     }
 
-    public List<CustomerDTO> getAllCustomers() {
-        return customerRepository.findAll().stream()
+    public List<CustomerDTO> getAllCustomers(Long after, int limit) {
+        return customerRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(limit)).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public void streamAllCustomers(Consumer<CustomerDTO> consumer) {
+        EntityStreams.forEach(customerRepository.streamAll(), entityManager, this::convertToDTO, consumer);
+    }
+
     public CustomerDTO getCustomerById(Long id) {
         Customer customer = customerRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Customer with ID " + id + " not found"));
@@ -57,7 +70,7 @@ public class CustomerService {
         customerRepository.deleteById(id);
     }
 
-    private CustomerDTO convertToDTO(Customer customer) {
+    CustomerDTO convertToDTO(Customer customer) {
         return new CustomerDTO(
                 customer.getId(),
                 customer.getFirstName(),
@@ -0,0 +1,35 @@
+package org.firstlab.second.service;
+
+import jakarta.persistence.EntityManager;
+
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Maps rows of a repository stream one by one and clears the persistence context every
+ * {@link #CLEAR_INTERVAL} rows, so walking a whole table keeps a constant amount of entities in memory.
+ * Must be called inside a transaction, the stream reads from an open JDBC cursor.
+ */
+final class EntityStreams {
+
+    static final int CLEAR_INTERVAL = 500;
+
+    private EntityStreams() {
+    }
+
+    static <E, D> void forEach(Stream<E> rows, EntityManager entityManager,
+                               Function<E, D> mapper, Consumer<D> consumer) {
+        try (rows) {
+            Iterator<E> iterator = rows.iterator();
+            int count = 0;
+            while (iterator.hasNext()) {
+                consumer.accept(mapper.apply(iterator.next()));
+                if (++count % CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+}
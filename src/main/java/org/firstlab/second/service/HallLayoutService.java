@@ -0,0 +1,78 @@
+package org.firstlab.second.service;
+
+import io.micrometer.core.annotation.Timed;
+import org.firstlab.second.config.CacheConfig;
+import org.firstlab.second.config.MetricsConfig;
+import org.firstlab.second.dto.HallLayoutDTO;
+import org.firstlab.second.dto.HallRowDTO;
+import org.firstlab.second.entity.Hall;
+import org.firstlab.second.entity.HallRow;
+import org.firstlab.second.repository.HallRepository;
+import org.firstlab.second.repository.HallRowRepository;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rows and sections of a hall. A layout has to cover the whole hall: the rows, in order, take seats
+ * 1..capacity one after another. A hall without a layout is a flat list of seats.
+ */
+@Service
+@Transactional
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+public class HallLayoutService {
+
+    private final HallRepository hallRepository;
+    private final HallRowRepository hallRowRepository;
+
+    public HallLayoutService(HallRepository hallRepository, HallRowRepository hallRowRepository) {
+        this.hallRepository = hallRepository;
+        this.hallRowRepository = hallRowRepository;
+    }
+
+    @Cacheable(cacheNames = CacheConfig.HALL_LAYOUTS, key = "#hallId")
+    public HallLayoutDTO getLayout(Long hallId) {
+        if (!hallRepository.existsById(hallId)) {
+            throw new RuntimeException("Hall with ID " + hallId + " not found");
+        }
+        List<HallRow> rows = hallRowRepository.findByHallIdOrderByRowIndexAsc(hallId);
+        List<HallRowDTO> dtos = new ArrayList<>(rows.size());
+        int firstSeat = 1;
+        for (HallRow row : rows) {
+            dtos.add(new HallRowDTO(row.getLabel(), row.getSection(), row.getSeats(), row.getQuality(), firstSeat));
+            firstSeat += row.getSeats();
+        }
+        return new HallLayoutDTO(hallId, List.copyOf(dtos));
+    }
+
+    /**
+     * Replaces the layout of the hall.
+     */
+    @CachePut(cacheNames = CacheConfig.HALL_LAYOUTS, key = "#hallId")
+    public HallLayoutDTO updateLayout(Long hallId, HallLayoutDTO layoutDTO) {
+        Hall hall = hallRepository.findById(hallId)
+                .orElseThrow(() -> new RuntimeException("Hall with ID " + hallId + " not found"));
+
+        int seats = layoutDTO.getRows().stream().mapToInt(HallRowDTO::getSeats).sum();
+        if (seats != hall.getCapacity()) {
+            throw new RuntimeException("Rows have " + seats + " seats in total, but hall capacity is " + hall.getCapacity());
+        }
+
+        hallRowRepository.deleteByHallId(hallId);
+        List<HallRow> rows = new ArrayList<>(layoutDTO.getRows().size());
+        List<HallRowDTO> dtos = new ArrayList<>(layoutDTO.getRows().size());
+        int firstSeat = 1;
+        for (HallRowDTO rowDTO : layoutDTO.getRows()) {
+            rows.add(new HallRow(null, hall, rows.size(), rowDTO.getLabel(), rowDTO.getSection(),
+                    rowDTO.getSeats(), rowDTO.getQuality()));
+            dtos.add(new HallRowDTO(rowDTO.getLabel(), rowDTO.getSection(), rowDTO.getSeats(), rowDTO.getQuality(), firstSeat));
+            firstSeat += rowDTO.getSeats();
+        }
+        hallRowRepository.saveAll(rows);
+        return new HallLayoutDTO(hallId, List.copyOf(dtos));
+    }
+}
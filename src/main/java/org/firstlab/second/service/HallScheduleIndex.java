@@ -0,0 +1,300 @@
+package org.firstlab.second.service;
+
+import org.firstlab.second.dto.FreeSlotDTO;
+import org.firstlab.second.repository.ScreeningRepository;
+import org.firstlab.second.repository.ScreeningSlot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Timeline of every hall that keeps screenings in the same hall from overlapping.
+ * <p>
+ * A screening takes its hall from its start until the movie ends plus the cleaning buffer. Screenings of a hall
+ * are ordered by start time, so the ones a new screening can collide with are a range lookup: only those starting
+ * less than the longest screening of the hall before it, usually none or one.
+ * <p>
+ * A screening is placed as soon as it is written, before the transaction commits, so a concurrent request for
+ * the same time already sees it; the placement is undone on rollback. Screenings loaded at startup are taken as
+ * they are, even if they overlap. Only changes made through this instance are seen.
+ */
+@Service
+public class HallScheduleIndex {
+
+    private final ScreeningRepository screeningRepository;
+    private final Duration cleaningBuffer;
+    private final ConcurrentMap<Long, HallTimeline> halls = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Slot> slots = new ConcurrentHashMap<>();
+    // Удалённые до конца загрузки: findAllSlots мог прочитать их раньше, чем удаление закоммитилось
+    private final Set<Long> removedBeforeLoad = ConcurrentHashMap.newKeySet();
+    private volatile boolean loaded;
+
+    public HallScheduleIndex(ScreeningRepository screeningRepository,
+                             @Value("${cinema.schedule.cleaning-buffer}") Duration cleaningBuffer) {
+        this.screeningRepository = screeningRepository;
+        this.cleaningBuffer = cleaningBuffer;
+    }
+
+    /**
+     * Fills the timelines at startup. Screenings placed in the meantime are kept, removed ones are skipped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadSchedule() {
+        for (ScreeningSlot screening : screeningRepository.findAllSlots()) {
+            if (removedBeforeLoad.contains(screening.id())) {
+                continue;
+            }
+            Slot slot = new Slot(screening.id(), screening.movieId(), screening.hallId(), screening.startTime(),
+                    screening.startTime().plusMinutes(screening.durationMinutes()));
+            HallTimeline timeline = timeline(slot.hallId());
+            synchronized (timeline) {
+                if (slots.putIfAbsent(slot.screeningId(), slot) == null) {
+                    timeline.add(slot);
+                }
+            }
+            if (removedBeforeLoad.contains(slot.screeningId())) {
+                remove(slot);
+            }
+        }
+        loaded = true;
+        removedBeforeLoad.clear();
+    }
+
+    /**
+     * Periods of the day when a screening can start in the hall. The last period is open-ended
+     * when nothing is scheduled after it.
+     */
+    public List<FreeSlotDTO> getFreeSlots(Long hallId, LocalDateTime from, LocalDateTime to) {
+        HallTimeline timeline = halls.get(hallId);
+        if (timeline == null) {
+            return List.of(new FreeSlotDTO(from, null));
+        }
+        synchronized (timeline) {
+            return timeline.freeSlots(from, to, cleaningBuffer);
+        }
+    }
+
+    /**
+     * Places a new or moved screening. Throws if it overlaps another screening of the hall.
+     */
+    void place(Long screeningId, Long movieId, Long hallId, LocalDateTime startTime, int durationMinutes) {
+        placeAll(List.of(new Booking(screeningId, movieId, hallId, startTime, durationMinutes)));
+    }
+
+    /**
+     * Places new or moved screenings, all or none: throws on the first one that overlaps another screening.
+     */
+    void placeAll(List<Booking> bookings) {
+        List<Slot> added = new ArrayList<>(bookings.size());
+        List<Slot> replaced = new ArrayList<>();
+        try {
+            for (Booking booking : bookings) {
+                Slot slot = booking.toSlot();
+                Slot previous = slots.get(slot.screeningId());
+                if (slot.equals(previous)) {
+                    continue;
+                }
+                HallTimeline timeline = timeline(slot.hallId());
+                synchronized (timeline) {
+                    Slot conflict = timeline.findConflict(slot, cleaningBuffer);
+                    if (conflict != null) {
+                        throw new RuntimeException(describe(conflict));
+                    }
+                    timeline.add(slot);
+                    slots.put(slot.screeningId(), slot);
+                }
+                added.add(slot);
+                if (previous != null) {
+                    replaced.add(previous);
+                }
+            }
+        } catch (RuntimeException ex) {
+            added.forEach(this::remove);
+            replaced.forEach(this::add);
+            throw ex;
+        }
+
+        // Старое место в расписании держим до коммита, новое снимаем при откате
+        TransactionHooks.afterCommit(() -> replaced.forEach(this::remove));
+        TransactionHooks.afterRollback(() -> {
+            added.forEach(this::remove);
+            replaced.forEach(this::add);
+        });
+    }
+
+    /**
+     * Checks new screenings of one hall, ordered by start time, against the hall's timeline and against each other.
+     * Returns the conflict of every booking, null for those that fit. Nothing is placed.
+     */
+    List<String> findConflicts(Long hallId, List<Booking> bookings) {
+        List<String> conflicts = new ArrayList<>(bookings.size());
+        LocalDateTime batchBlockedUntil = LocalDateTime.MIN;
+        HallTimeline timeline = timeline(hallId);
+        synchronized (timeline) {
+            for (Booking booking : bookings) {
+                Slot slot = booking.toSlot();
+                Slot conflict = timeline.findConflict(slot, cleaningBuffer);
+                if (conflict != null) {
+                    conflicts.add(describe(conflict));
+                } else if (batchBlockedUntil.isAfter(slot.start())) {
+                    conflicts.add("Hall " + hallId + " is taken by an earlier screening of the same batch until " +
+                            batchBlockedUntil + " including cleaning");
+                } else {
+                    conflicts.add(null);
+                    batchBlockedUntil = slot.end().plus(cleaningBuffer);
+                }
+            }
+        }
+        return conflicts;
+    }
+
+    /**
+     * Moves the end of every screening of the movie. Throws if a longer screening would run into the next one.
+     */
+    void changeDuration(Long movieId, int durationMinutes) {
+        placeAll(slots.values().stream()
+                .filter(slot -> slot.movieId().equals(movieId))
+                .map(slot -> new Booking(slot.screeningId(), movieId, slot.hallId(), slot.start(), durationMinutes))
+                .toList());
+    }
+
+    void remove(Long screeningId) {
+        TransactionHooks.afterCommit(() -> {
+            if (!loaded) {
+                removedBeforeLoad.add(screeningId);
+            }
+            Slot slot = slots.get(screeningId);
+            if (slot != null) {
+                remove(slot);
+            }
+        });
+    }
+
+    private void add(Slot slot) {
+        HallTimeline timeline = timeline(slot.hallId());
+        synchronized (timeline) {
+            timeline.add(slot);
+            slots.put(slot.screeningId(), slot);
+        }
+    }
+
+    private void remove(Slot slot) {
+        HallTimeline timeline = timeline(slot.hallId());
+        synchronized (timeline) {
+            timeline.remove(slot);
+            slots.remove(slot.screeningId(), slot);
+        }
+    }
+
+    private String describe(Slot conflict) {
+        return "Hall " + conflict.hallId() + " is taken by screening " + conflict.screeningId() +
+                " from " + conflict.start() + " to " + conflict.end().plus(cleaningBuffer) + " including cleaning";
+    }
+
+    private HallTimeline timeline(Long hallId) {
+        return halls.computeIfAbsent(hallId, id -> new HallTimeline());
+    }
+
+    /**
+     * Screenings of one hall by start time. Guarded by its own monitor.
+     */
+    private static final class HallTimeline {
+
+        private final NavigableMap<SlotKey, Slot> byStart = new TreeMap<>();
+        // Самый длинный сеанс зала: раньше чем за это время до нового сеанса пересекающиеся не начинаются
+        private Duration longest = Duration.ZERO;
+
+        void add(Slot slot) {
+            byStart.put(slot.key(), slot);
+            Duration length = Duration.between(slot.start(), slot.end());
+            if (length.compareTo(longest) > 0) {
+                longest = length;
+            }
+        }
+
+        void remove(Slot slot) {
+            byStart.remove(slot.key(), slot);
+        }
+
+        Slot findConflict(Slot slot, Duration buffer) {
+            LocalDateTime blockedUntil = slot.end().plus(buffer);
+            SlotKey from = new SlotKey(slot.start().minus(longest).minus(buffer), Long.MIN_VALUE);
+            SlotKey to = new SlotKey(blockedUntil, Long.MIN_VALUE);
+            for (Slot other : byStart.subMap(from, true, to, false).values()) {
+                if (!other.screeningId().equals(slot.screeningId()) && other.end().plus(buffer).isAfter(slot.start())) {
+                    return other;
+                }
+            }
+            return null;
+        }
+
+        List<FreeSlotDTO> freeSlots(LocalDateTime from, LocalDateTime to, Duration buffer) {
+            List<FreeSlotDTO> free = new ArrayList<>();
+            LocalDateTime cursor = from;
+            SlotKey first = new SlotKey(from.minus(longest).minus(buffer), Long.MIN_VALUE);
+            for (Slot slot : byStart.tailMap(first, true).values()) {
+                LocalDateTime blockedUntil = slot.end().plus(buffer);
+                if (!blockedUntil.isAfter(cursor)) {
+                    continue;
+                }
+                // A screening in the gap has to be cleaned up before the next one starts
+                LocalDateTime latestEnd = slot.start().minus(buffer);
+                if (latestEnd.isAfter(cursor)) {
+                    free.add(new FreeSlotDTO(cursor, latestEnd));
+                }
+                if (!slot.start().isBefore(to)) {
+                    return free;
+                }
+                cursor = blockedUntil;
+                if (!cursor.isBefore(to)) {
+                    return free;
+                }
+            }
+            free.add(new FreeSlotDTO(cursor, null));
+            return free;
+        }
+    }
+
+    /**
+     * A screening to be placed. The id may be null when only checking for conflicts.
+     */
+    record Booking(Long screeningId, Long movieId, Long hallId, LocalDateTime startTime, int durationMinutes) {
+
+        private Slot toSlot() {
+            return new Slot(screeningId, movieId, hallId, startTime, startTime.plusMinutes(durationMinutes));
+        }
+    }
+
+    private record Slot(Long screeningId, Long movieId, Long hallId, LocalDateTime start, LocalDateTime end) {
+
+        SlotKey key() {
+            return new SlotKey(start, screeningId);
+        }
+    }
+
+    private record SlotKey(LocalDateTime start, long screeningId) implements Comparable<SlotKey> {
+
+        private static final Comparator<SlotKey> ORDER = Comparator
+                .comparing(SlotKey::start)
+                .thenComparingLong(SlotKey::screeningId);
+
+        @Override
+        public int compareTo(SlotKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
@@ -1,22 +1,47 @@
 package org.firstlab.second.service;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.firstlab.second.config.CacheConfig;
+import org.firstlab.second.config.MetricsConfig;
+import org.firstlab.second.dto.FreeSlotDTO;
 import org.firstlab.second.dto.HallDTO;
 import org.firstlab.second.entity.Hall;
 import org.firstlab.second.repository.HallRepository;
+import org.firstlab.second.repository.HallRowRepository;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
 public class HallService {
 
     private final HallRepository hallRepository;
+    private final HallRowRepository hallRowRepository;
+    private final EntityManager entityManager;
+    private final UpcomingScreeningIndex upcomingScreeningIndex;
+    private final HallScheduleIndex hallScheduleIndex;
 
-    public HallService(HallRepository hallRepository) {
+    public HallService(HallRepository hallRepository,
+                        HallRowRepository hallRowRepository,
+                        EntityManager entityManager,
+                        UpcomingScreeningIndex upcomingScreeningIndex,
+                        HallScheduleIndex hallScheduleIndex) {
         this.hallRepository = hallRepository;
+        this.hallRowRepository = hallRowRepository;
+        this.entityManager = entityManager;
+        this.upcomingScreeningIndex = upcomingScreeningIndex;
+        this.hallScheduleIndex = hallScheduleIndex;
     }
 
     public HallDTO createHall(HallDTO hallDTO) {
@@ -25,37 +50,74 @@ public class HallService {
         return convertToDTO(savedHall);
     }
 
-    public List<HallDTO> getAllHalls() {
-        return hallRepository.findAll().stream()
+    public List<HallDTO> getAllHalls(Long after, int limit) {
+        return hallRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(limit)).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public void streamAllHalls(Consumer<HallDTO> consumer) {
+        EntityStreams.forEach(hallRepository.streamAll(), entityManager, this::convertToDTO, consumer);
+    }
+
+    @Cacheable(cacheNames = CacheConfig.HALLS, key = "#id")
     public HallDTO getHallById(Long id) {
         Hall hall = hallRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Hall with ID " + id + " not found"));
         return convertToDTO(hall);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.HALLS, key = "#id")
     public HallDTO updateHall(Long id, HallDTO hallDTO) {
         Hall hall = hallRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Hall with ID " + id + " not found"));
 
+        // Вместимость зала с разметкой рядов должна совпадать с числом мест в рядах
+        if (!hall.getCapacity().equals(hallDTO.getCapacity())) {
+            long layoutSeats = hallRowRepository.sumSeatsByHallId(id);
+            if (layoutSeats > 0 && layoutSeats != hallDTO.getCapacity()) {
+                throw new RuntimeException("Hall layout has " + layoutSeats + " seats, update the layout together with the capacity");
+            }
+        }
+
         hall.setName(hallDTO.getName());
         hall.setCapacity(hallDTO.getCapacity());
 
         Hall updatedHall = hallRepository.save(hall);
-        return convertToDTO(updatedHall);
+        HallDTO dto = convertToDTO(updatedHall);
+        upcomingScreeningIndex.refreshHall(dto);
+        return dto;
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.HALLS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.HALL_LAYOUTS, key = "#id")
+    })
     public void deleteHall(Long id) {
         if (!hallRepository.existsById(id)) {
             throw new RuntimeException("Hall with ID " + id + " not found");
         }
+        hallRowRepository.deleteByHallId(id);
         hallRepository.deleteById(id);
     }
 
-    private HallDTO convertToDTO(Hall hall) {
+    /**
+     * Periods starting on the given day when the hall is free for a screening of at least {@code minMinutes},
+     * served from {@link HallScheduleIndex}.
+     */
+    @Transactional(readOnly = true)
+    public List<FreeSlotDTO> getFreeSlots(Long id, LocalDate date, int minMinutes) {
+        if (!hallRepository.existsById(id)) {
+            throw new RuntimeException("Hall with ID " + id + " not found");
+        }
+        return hallScheduleIndex.getFreeSlots(id, date.atStartOfDay(), date.plusDays(1).atStartOfDay()).stream()
+                .filter(slot -> slot.getEnd() == null
+                        || !slot.getStart().plusMinutes(minMinutes).isAfter(slot.getEnd()))
+                .collect(Collectors.toList());
+    }
+
+    HallDTO convertToDTO(Hall hall) {
         return new HallDTO(
                 hall.getId(),
                 hall.getName(),
@@ -0,0 +1,181 @@
+package org.firstlab.second.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.firstlab.second.entity.IdempotencyRecord;
+import org.firstlab.second.exception.RequestInProgressException;
+import org.firstlab.second.repository.IdempotencyRecordRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Makes retried POST requests safe: the first request with a given Idempotency-Key runs, its response is
+ * kept and every retry gets the same bytes back without touching the database.
+ * <p>
+ * Responses are kept in a bounded in-memory cache that expires entries after the configured ttl. A retry
+ * arriving while the first request is still running waits for it instead of running the action a second time.
+ * With persistence enabled keys are also claimed in the idempotency_keys table, so a retry landing on another
+ * instance or after a restart is answered from there. Failed requests are not remembered and can be retried.
+ * A claim left without a response (the instance crashed, or storing the response failed) blocks the key only
+ * for the claim lease, then a retry takes it over.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration claimLease;
+    private final boolean persist;
+    private final Cache<String, CompletableFuture<StoredResponse>> responses;
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${cinema.idempotency.ttl}") Duration ttl,
+                              @Value("${cinema.idempotency.max-entries}") long maxEntries,
+                              @Value("${cinema.idempotency.claim-lease}") Duration claimLease,
+                              @Value("${cinema.idempotency.persist}") boolean persist) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.claimLease = claimLease;
+        this.persist = persist;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "idempotency");
+    }
+
+    /**
+     * Runs the action once per scope and key and returns its response serialized as JSON.
+     * Reusing a key with a different request body is rejected.
+     */
+    public IdempotentResponse execute(String scope, String key, Object request, int status, Supplier<?> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException(HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String id = scope + ':' + key;
+        String fingerprint = fingerprint(request);
+
+        while (true) {
+            CompletableFuture<StoredResponse> pending = new CompletableFuture<>();
+            CompletableFuture<StoredResponse> existing = responses.asMap().putIfAbsent(id, pending);
+            if (existing == null) {
+                return run(id, key, fingerprint, status, action, pending);
+            }
+            try {
+                return replay(key, existing.join(), fingerprint);
+            } catch (CompletionException ex) {
+                // The first request failed and forgot the key, this one runs in its place
+                responses.asMap().remove(id, existing);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cinema.idempotency.purge-interval-ms}")
+    public void purgeExpiredKeys() {
+        if (persist) {
+            repository.deleteCreatedBefore(LocalDateTime.now().minus(ttl));
+        }
+    }
+
+    private IdempotentResponse run(String id, String key, String fingerprint, int status, Supplier<?> action,
+                                   CompletableFuture<StoredResponse> pending) {
+        StoredResponse response;
+        try {
+            StoredResponse stored = persist ? claim(id, key, fingerprint) : null;
+            if (stored != null) {
+                pending.complete(stored);
+                return replay(key, stored, fingerprint);
+            }
+            try {
+                response = new StoredResponse(fingerprint, status, objectMapper.writeValueAsBytes(action.get()));
+            } catch (RuntimeException | JsonProcessingException ex) {
+                if (persist) {
+                    repository.deleteById(id);
+                }
+                throw ex;
+            }
+        } catch (RuntimeException | JsonProcessingException ex) {
+            responses.asMap().remove(id, pending);
+            pending.completeExceptionally(ex);
+            throw ex instanceof RuntimeException runtime ? runtime : new IllegalStateException(ex);
+        }
+        pending.complete(response);
+        if (persist) {
+            try {
+                repository.complete(id, response.status(), response.body());
+            } catch (RuntimeException ex) {
+                // Действие уже выполнено: ответ остаётся в памяти, а строка без ответа держит ключ
+                // на других экземплярах только до конца аренды
+            }
+        }
+        return new IdempotentResponse(response.status(), response.body(), false);
+    }
+
+    /**
+     * Claims the key in the table, or takes over a claim of the same request whose lease has run out.
+     * Returns the stored response if another instance already completed the request.
+     */
+    private StoredResponse claim(String id, String key, String fingerprint) {
+        LocalDateTime now = LocalDateTime.now();
+        if (repository.claim(id, fingerprint, now) == 1
+                || repository.takeOver(id, fingerprint, now, now.minus(claimLease)) == 1) {
+            return null;
+        }
+        IdempotencyRecord record = repository.findById(id)
+                .orElseThrow(() -> new RequestInProgressException("Request with " + HEADER + " " + key + " is being processed, retry later"));
+        if (record.getStatus() == null) {
+            if (!record.getFingerprint().equals(fingerprint)) {
+                throw new RuntimeException(HEADER + " " + key + " was already used with a different request");
+            }
+            throw new RequestInProgressException("Request with " + HEADER + " " + key + " is being processed, retry later");
+        }
+        return new StoredResponse(record.getFingerprint(), record.getStatus(), record.getResponseBody());
+    }
+
+    private IdempotentResponse replay(String key, StoredResponse stored, String fingerprint) {
+        if (!stored.fingerprint().equals(fingerprint)) {
+            throw new RuntimeException(HEADER + " " + key + " was already used with a different request");
+        }
+        return new IdempotentResponse(stored.status(), stored.body(), true);
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * A response ready to be written as is. Replayed responses were produced by an earlier request.
+     */
+    public record IdempotentResponse(int status, byte[] body, boolean replayed) {
+    }
+
+    private record StoredResponse(String fingerprint, int status, byte[] body) {
+    }
+}
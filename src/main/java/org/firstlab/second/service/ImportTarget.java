@@ -0,0 +1,134 @@
+package org.firstlab.second.service;
+
+import org.firstlab.second.dto.CustomerDTO;
+import org.firstlab.second.dto.HallDTO;
+import org.firstlab.second.dto.MovieDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * A table that can be filled by {@link CsvImportService}: the CSV columns, read into the DTO the REST API
+ * accepts so the same constraints apply, and the table columns they are written to.
+ *
+ * @param fields DTO fields expected as CSV columns, in the order of {@code columns}
+ * @param uniqueColumn column with a unique constraint, checked before writing; null if there is none
+ */
+record ImportTarget<T>(
+        String name,
+        String table,
+        List<String> fields,
+        List<String> columns,
+        Function<Row, T> parser,
+        Function<T, List<Object>> values,
+        String uniqueColumn,
+        Function<T, String> uniqueKey
+) {
+
+    static final ImportTarget<MovieDTO> MOVIES = new ImportTarget<>(
+            "movies",
+            "movies",
+            List.of("title", "description", "durationMinutes", "genre", "director", "year"),
+            List.of("title", "description", "duration_minutes", "genre", "director", "movie_year"),
+            row -> new MovieDTO(null, row.text(0), row.text(1), row.integer(2), row.text(3), row.text(4), row.integer(5)),
+            movie -> Arrays.asList(movie.getTitle(), movie.getDescription(), movie.getDurationMinutes(), movie.getGenre(),
+                    movie.getDirector(), movie.getYear()),
+            null,
+            null
+    );
+
+    static final ImportTarget<CustomerDTO> CUSTOMERS = new ImportTarget<>(
+            "customers",
+            "customers",
+            List.of("firstName", "lastName", "email", "phone"),
+            List.of("first_name", "last_name", "email", "phone"),
+            row -> new CustomerDTO(null, row.text(0), row.text(1), row.text(2), row.text(3)),
+            customer -> Arrays.asList(customer.getFirstName(), customer.getLastName(), customer.getEmail(), customer.getPhone()),
+            "email",
+            CustomerDTO::getEmail
+    );
+
+    static final ImportTarget<HallDTO> HALLS = new ImportTarget<>(
+            "halls",
+            "halls",
+            List.of("name", "capacity"),
+            List.of("name", "capacity"),
+            row -> new HallDTO(null, row.text(0), row.integer(1)),
+            hall -> Arrays.asList(hall.getName(), hall.getCapacity()),
+            "name",
+            HallDTO::getName
+    );
+
+    static ImportTarget<?> of(String name) {
+        return switch (name.toLowerCase(Locale.ROOT)) {
+            case "movies" -> MOVIES;
+            case "customers" -> CUSTOMERS;
+            case "halls" -> HALLS;
+            default -> throw new RuntimeException("Unknown import target " + name + ", expected movies, customers or halls");
+        };
+    }
+
+    /**
+     * Position of every field in the CSV header. Header names are matched ignoring case, '_' and '-',
+     * so both firstName and first_name work.
+     */
+    int[] positions(List<String> header) {
+        List<String> normalized = header.stream().map(ImportTarget::normalize).toList();
+        List<String> unknown = new ArrayList<>();
+        for (int i = 0; i < normalized.size(); i++) {
+            if (fields.stream().map(ImportTarget::normalize).noneMatch(normalized.get(i)::equals)) {
+                unknown.add(header.get(i));
+            }
+        }
+        if (!unknown.isEmpty()) {
+            throw new RuntimeException("Unknown columns " + unknown + " for " + name + ", expected " + fields);
+        }
+        int[] positions = new int[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            positions[i] = normalized.indexOf(normalize(fields.get(i)));
+            if (positions[i] < 0) {
+                throw new RuntimeException("Column " + fields.get(i) + " is missing for " + name);
+            }
+        }
+        return positions;
+    }
+
+    String copySql() {
+        return "COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT csv)";
+    }
+
+    String insertSql() {
+        return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES (" +
+                String.join(", ", columns.stream().map(column -> "?").toList()) + ")";
+    }
+
+    private static String normalize(String name) {
+        return name.strip().replace("_", "").replace("-", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Values of one CSV record, taken in the order of the target's fields.
+     */
+    record Row(List<String> record, int[] positions, List<String> fields) {
+
+        String text(int field) {
+            String value = record.get(positions[field]).strip();
+            return value.isEmpty() ? null : value;
+        }
+
+        Integer integer(int field) {
+            String value = text(field);
+            if (value == null) {
+                return null;
+            }
+            try {
+                return Integer.valueOf(value);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException(fields.get(field) + ": " + value + " is not a whole number");
+            }
+        }
+    }
+}
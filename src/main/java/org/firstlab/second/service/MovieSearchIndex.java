@@ -0,0 +1,303 @@
+package org.firstlab.second.service;
+
+import org.firstlab.second.dto.MovieDTO;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Inverted index over movie title, director, genre and description.
+ * <p>
+ * Each query term is matched exactly, as a prefix of an indexed term ("inter" finds "interstellar")
+ * and within a small edit distance found through a trigram index ("intersteller" finds it too).
+ * A movie has to match every query term. Its score is the sum over the terms of the weight of the best
+ * field the term was found in, discounted for prefix and fuzzy matches.
+ * <p>
+ * Changes coming from a transaction are applied after it commits. Terms are never dropped from the
+ * dictionary: a term whose postings became empty just matches nothing.
+ */
+@Service
+public class MovieSearchIndex {
+
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private static final int TITLE_WEIGHT = 8;
+    private static final int DIRECTOR_WEIGHT = 4;
+    private static final int GENRE_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private static final double PREFIX_FACTOR = 0.7;
+    private static final double FUZZY_FACTOR = 0.5;
+    private static final int MAX_PREFIX_EXPANSIONS = 100;
+
+    private final ConcurrentMap<Long, MovieDTO> movies = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Set<String>> documentTerms = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentMap<Long, Integer>> postings = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<String> dictionary = new ConcurrentSkipListSet<>();
+    private final ConcurrentMap<String, Set<String>> trigrams = new ConcurrentHashMap<>();
+    // Удалённые, пока читаются фильмы для load/add: чтение могло застать их до удаления
+    private final Set<Long> removedDuringLoad = ConcurrentHashMap.newKeySet();
+    private int loadsRunning;
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Fills the index with the movies read at startup. Movies indexed in the meantime are kept, movies removed
+     * while the source was being read are skipped.
+     */
+    void load(Supplier<? extends Collection<MovieDTO>> source) {
+        merge(source);
+        ready = true;
+    }
+
+    /**
+     * Adds movies written to the table past this index, such as imported ones, by the same rules as {@link #load}.
+     */
+    void add(Supplier<? extends Collection<MovieDTO>> source) {
+        merge(source);
+    }
+
+    void put(MovieDTO movie) {
+        MovieDTO snapshot = copyOf(movie);
+        TransactionHooks.afterCommit(() -> doPut(snapshot));
+    }
+
+    void remove(Long movieId) {
+        TransactionHooks.afterCommit(() -> {
+            synchronized (removedDuringLoad) {
+                if (loadsRunning > 0) {
+                    removedDuringLoad.add(movieId);
+                }
+            }
+            doRemove(movieId);
+        });
+    }
+
+    public List<MovieDTO> search(String query, int offset, int limit) {
+        List<String> queryTerms = tokenize(query).distinct().toList();
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Double> scores = null;
+        for (String term : queryTerms) {
+            Map<Long, Double> termScores = scoreTerm(term);
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                scores.keySet().retainAll(termScores.keySet());
+                scores.replaceAll((id, score) -> score + termScores.get(id));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        if (offset >= scores.size()) {
+            return List.of();
+        }
+        // Only the first offset + limit hits are ranked, the heap keeps the worst of them on top
+        int wanted = (int) Math.min((long) offset + limit, scores.size());
+        PriorityQueue<Hit> top = new PriorityQueue<>(wanted + 1, Hit.ORDER.reversed());
+        scores.forEach((id, score) -> {
+            Hit worst = top.peek();
+            if (top.size() == wanted && (score < worst.score() || score == worst.score() && id > worst.id())) {
+                return;
+            }
+            MovieDTO movie = movies.get(id);
+            if (movie != null) {
+                top.add(new Hit(id, movie, score));
+                if (top.size() > wanted) {
+                    top.poll();
+                }
+            }
+        });
+        return top.stream()
+                .sorted(Hit.ORDER)
+                .skip(offset)
+                .map(Hit::movie)
+                .collect(Collectors.toList());
+    }
+
+    private Map<Long, Double> scoreTerm(String term) {
+        Map<Long, Double> scores = new HashMap<>();
+        collect(scores, term, 1.0);
+
+        dictionary.subSet(term, false, term + Character.MAX_VALUE, false).stream()
+                .limit(MAX_PREFIX_EXPANSIONS)
+                .forEach(candidate -> collect(scores, candidate, PREFIX_FACTOR));
+
+        int maxDistance = term.length() >= 8 ? 2 : term.length() >= 4 ? 1 : 0;
+        if (maxDistance > 0) {
+            fuzzyCandidates(term, maxDistance).forEach(candidate -> collect(scores, candidate, FUZZY_FACTOR));
+        }
+        return scores;
+    }
+
+    private void collect(Map<Long, Double> scores, String term, double factor) {
+        Map<Long, Integer> termPostings = postings.get(term);
+        if (termPostings != null) {
+            termPostings.forEach((id, weight) -> scores.merge(id, weight * factor, Math::max));
+        }
+    }
+
+    /**
+     * Terms within maxDistance edits of the given one. A term of length n has n padded trigrams and
+     * one edit breaks at most three of them, so candidates must share at least n - 3 * maxDistance.
+     */
+    private List<String> fuzzyCandidates(String term, int maxDistance) {
+        Map<String, Integer> shared = new HashMap<>();
+        for (String trigram : trigramsOf(term)) {
+            Set<String> terms = trigrams.get(trigram);
+            if (terms != null) {
+                terms.forEach(candidate -> shared.merge(candidate, 1, Integer::sum));
+            }
+        }
+        int required = term.length() - 3 * maxDistance;
+        return shared.entrySet().stream()
+                .filter(entry -> entry.getValue() >= required)
+                .map(Map.Entry::getKey)
+                .filter(candidate -> !candidate.equals(term))
+                .filter(candidate -> Math.abs(candidate.length() - term.length()) <= maxDistance)
+                .filter(candidate -> editDistance(term, candidate, maxDistance) <= maxDistance)
+                .collect(Collectors.toList());
+    }
+
+    private void merge(Supplier<? extends Collection<MovieDTO>> source) {
+        synchronized (removedDuringLoad) {
+            loadsRunning++;
+        }
+        try {
+            Collection<MovieDTO> loaded = source.get();
+            synchronized (this) {
+                loaded.stream()
+                        .filter(movie -> !movies.containsKey(movie.getId()) && !removedDuringLoad.contains(movie.getId()))
+                        .forEach(movie -> doPut(copyOf(movie)));
+            }
+        } finally {
+            synchronized (removedDuringLoad) {
+                if (--loadsRunning == 0) {
+                    removedDuringLoad.clear();
+                }
+            }
+        }
+    }
+
+    private synchronized void doPut(MovieDTO movie) {
+        doRemove(movie.getId());
+
+        Map<String, Integer> terms = new HashMap<>();
+        addTerms(terms, movie.getTitle(), TITLE_WEIGHT);
+        addTerms(terms, movie.getDirector(), DIRECTOR_WEIGHT);
+        addTerms(terms, movie.getGenre(), GENRE_WEIGHT);
+        addTerms(terms, movie.getDescription(), DESCRIPTION_WEIGHT);
+
+        movies.put(movie.getId(), movie);
+        documentTerms.put(movie.getId(), terms.keySet());
+        terms.forEach((term, weight) -> postings.computeIfAbsent(term, this::newTerm).put(movie.getId(), weight));
+    }
+
+    private synchronized void doRemove(Long movieId) {
+        movies.remove(movieId);
+        Set<String> terms = documentTerms.remove(movieId);
+        if (terms != null) {
+            terms.forEach(term -> {
+                Map<Long, Integer> termPostings = postings.get(term);
+                if (termPostings != null) {
+                    termPostings.remove(movieId);
+                }
+            });
+        }
+    }
+
+    private ConcurrentMap<Long, Integer> newTerm(String term) {
+        dictionary.add(term);
+        for (String trigram : trigramsOf(term)) {
+            trigrams.computeIfAbsent(trigram, key -> ConcurrentHashMap.newKeySet()).add(term);
+        }
+        return new ConcurrentHashMap<>();
+    }
+
+    private static void addTerms(Map<String, Integer> terms, String text, int weight) {
+        tokenize(text).forEach(term -> terms.merge(term, weight, Math::max));
+    }
+
+    private static Stream<String> tokenize(String text) {
+        if (text == null) {
+            return Stream.empty();
+        }
+        return SEPARATOR.splitAsStream(text.toLowerCase(Locale.ROOT).replace('\u0451', '\u0435'))
+                .filter(term -> !term.isEmpty());
+    }
+
+    private static List<String> trigramsOf(String term) {
+        String padded = "^" + term + "$";
+        return Stream.iterate(0, i -> i + 3 <= padded.length(), i -> i + 1)
+                .map(i -> padded.substring(i, i + 3))
+                .distinct()
+                .toList();
+    }
+
+    /**
+     * Levenshtein distance, giving up with maxDistance + 1 as soon as every cell in a row exceeds the limit.
+     */
+    private static int editDistance(String a, String b, int maxDistance) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private static MovieDTO copyOf(MovieDTO movie) {
+        return new MovieDTO(
+                movie.getId(),
+                movie.getTitle(),
+                movie.getDescription(),
+                movie.getDurationMinutes(),
+                movie.getGenre(),
+                movie.getDirector(),
+                movie.getYear()
+        );
+    }
+
+    private record Hit(long id, MovieDTO movie, double score) {
+
+        private static final Comparator<Hit> ORDER = Comparator
+                .comparingDouble(Hit::score).reversed()
+                .thenComparingLong(Hit::id);
+    }
+}
@@ -1,46 +1,86 @@
 package org.firstlab.second.service;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.firstlab.second.config.CacheConfig;
+import org.firstlab.second.config.MetricsConfig;
 import org.firstlab.second.dto.MovieDTO;
 import org.firstlab.second.entity.Movie;
 import org.firstlab.second.repository.MovieRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
 public class MovieService {
 
     private final MovieRepository movieRepository;
-
-    public MovieService(MovieRepository movieRepository) {
+    private final EntityManager entityManager;
+    private final UpcomingScreeningIndex upcomingScreeningIndex;
+    private final MovieSearchIndex movieSearchIndex;
+    private final HallScheduleIndex hallScheduleIndex;
+
+    public MovieService(MovieRepository movieRepository,
+                        EntityManager entityManager,
+                        UpcomingScreeningIndex upcomingScreeningIndex,
+                        MovieSearchIndex movieSearchIndex,
+                        HallScheduleIndex hallScheduleIndex) {
         this.movieRepository = movieRepository;
+        this.entityManager = entityManager;
+        this.upcomingScreeningIndex = upcomingScreeningIndex;
+        this.movieSearchIndex = movieSearchIndex;
+        this.hallScheduleIndex = hallScheduleIndex;
     }
 
     public MovieDTO createMovie(MovieDTO movieDTO) {
         Movie movie = convertToEntity(movieDTO);
         Movie savedMovie = movieRepository.save(movie);
-        return convertToDTO(savedMovie);
+        MovieDTO dto = convertToDTO(savedMovie);
+        movieSearchIndex.put(dto);
+        return dto;
     }
 
-    public List<MovieDTO> getAllMovies() {
-        return movieRepository.findAll().stream()
+    public List<MovieDTO> getAllMovies(Long after, int limit) {
+        return movieRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(limit)).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public void streamAllMovies(Consumer<MovieDTO> consumer) {
+        EntityStreams.forEach(movieRepository.streamAll(), entityManager, this::convertToDTO, consumer);
+    }
+
+    @Cacheable(cacheNames = CacheConfig.MOVIES, key = "#id")
     public MovieDTO getMovieById(Long id) {
         Movie movie = movieRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Movie with ID " + id + " not found"));
         return convertToDTO(movie);
     }
 
+    @CacheEvict(cacheNames = CacheConfig.MOVIES, key = "#id")
     public MovieDTO updateMovie(Long id, MovieDTO movieDTO) {
         Movie movie = movieRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Movie with ID " + id + " not found"));
 
+        // Сеансы фильма становятся длиннее или короче, более длинный не должен налезть на следующий в зале
+        if (!movie.getDurationMinutes().equals(movieDTO.getDurationMinutes())) {
+            hallScheduleIndex.changeDuration(id, movieDTO.getDurationMinutes());
+        }
+
         movie.setTitle(movieDTO.getTitle());
         movie.setDescription(movieDTO.getDescription());
         movie.setDurationMinutes(movieDTO.getDurationMinutes());
@@ -49,29 +89,76 @@ public class MovieService {
         movie.setYear(movieDTO.getYear());
 
         Movie updatedMovie = movieRepository.save(movie);
-        return convertToDTO(updatedMovie);
+        MovieDTO dto = convertToDTO(updatedMovie);
+        upcomingScreeningIndex.refreshMovie(dto);
+        movieSearchIndex.put(dto);
+        return dto;
     }
 
+    @CacheEvict(cacheNames = CacheConfig.MOVIES, key = "#id")
     public void deleteMovie(Long id) {
         if (!movieRepository.existsById(id)) {
             throw new RuntimeException("Movie with ID " + id + " not found");
         }
         movieRepository.deleteById(id);
+        movieSearchIndex.remove(id);
     }
 
-    public List<MovieDTO> searchByTitle(String title) {
-        return movieRepository.findByTitleContainingIgnoreCase(title).stream()
+    /**
+     * Ranked search over title, director, genre and description, served from {@link MovieSearchIndex}.
+     * Until the index is loaded falls back to a title LIKE query.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<MovieDTO> searchMovies(String query, int offset, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new RuntimeException("Search query cannot be empty");
+        }
+        if (movieSearchIndex.isReady()) {
+            return movieSearchIndex.search(query, offset, limit);
+        }
+        return movieRepository.findByTitleContainingIgnoreCase(query.trim()).stream()
+                .skip(offset)
+                .limit(limit)
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadSearchIndex() {
+        movieSearchIndex.load(() -> readMovies(movieRepository.streamAll()));
+    }
+
+    /**
+     * Id of the newest movie, null when there are none. Movies written later get greater ids.
+     */
+    @Transactional(readOnly = true)
+    public Long getLastMovieId() {
+        return movieRepository.findMaxId();
+    }
+
+    /**
+     * Adds the movies written straight to the table after {@code afterId} to the search index.
+     */
+    @Transactional(readOnly = true)
+    public void indexMoviesAfter(Long afterId) {
+        Long from = afterId != null ? afterId : 0L;
+        movieSearchIndex.add(() -> readMovies(movieRepository.streamByIdGreaterThan(from)));
+    }
+
+    private List<MovieDTO> readMovies(Stream<Movie> rows) {
+        List<MovieDTO> movies = new ArrayList<>();
+        EntityStreams.forEach(rows, entityManager, this::convertToDTO, movies::add);
+        return movies;
+    }
+
     public List<MovieDTO> getMoviesByGenre(String genre) {
         return movieRepository.findByGenre(genre).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
-    private MovieDTO convertToDTO(Movie movie) {
+    MovieDTO convertToDTO(Movie movie) {
         return new MovieDTO(
                 movie.getId(),
                 movie.getTitle(),
@@ -0,0 +1,191 @@
+package org.firstlab.second.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import org.firstlab.second.config.MetricsConfig;
+import org.firstlab.second.dto.TicketSaleDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Exports tickets of the screenings starting in a period (both ends included, as in
+ * {@code ScreeningRepository.findByStartTimeBetween}) together with the screening price, movie and hall.
+ * <p>
+ * Rows are read through a forward-only cursor fetching {@link #FETCH_SIZE} rows at a time and written to the
+ * output as they arrive, so memory doesn't depend on the size of the period. On PostgreSQL the cursor only
+ * fetches in chunks inside a transaction, hence the read-only transaction around the export.
+ */
+@Service
+@Transactional(readOnly = true)
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+public class SalesExportService {
+
+    static final int FETCH_SIZE = 1000;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String CSV_HEADER = "ticket_id,purchase_time,is_cancelled,seat_number,customer_id," +
+            "screening_id,start_time,price,movie_id,movie_title,hall_id,hall_name";
+
+    /**
+     * Last line of an export that failed after the response had started. It is neither a CSV record nor JSON,
+     * so a reader checking the rows fails on it instead of taking a truncated file for a complete one.
+     */
+    static final String INCOMPLETE_MARKER = "# export incomplete";
+
+    private static final String FORMULA_START = "=+-@\t\r";
+
+    // По индексу на screenings.start_time, билеты каждого сеанса - по индексу на tickets.screening_id
+    private static final String SALES_SQL =
+            "SELECT t.id, t.purchase_time, t.is_cancelled, t.seat_number, t.customer_id, " +
+            "s.id, s.start_time, s.price, m.id, m.title, h.id, h.name " +
+            "FROM screenings s " +
+            "JOIN tickets t ON t.screening_id = s.id " +
+            "JOIN movies m ON m.id = s.movie_id " +
+            "JOIN halls h ON h.id = s.hall_id " +
+            "WHERE s.start_time BETWEEN ? AND ? " +
+            "ORDER BY s.start_time, s.id, t.id";
+
+    public enum Format {
+        CSV, NDJSON;
+
+        public static Format of(String name) {
+            return switch (name.toLowerCase(Locale.ROOT)) {
+                case "csv" -> CSV;
+                case "ndjson" -> NDJSON;
+                default -> throw new RuntimeException("Unknown export format " + name + ", expected csv or ndjson");
+            };
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public SalesExportService(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes the sales of the period to the output, which is flushed but not closed. If reading fails midway,
+     * the rows written so far are followed by the {@link #INCOMPLETE_MARKER} line.
+     */
+    public void exportSales(LocalDateTime from, LocalDateTime to, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        RowCallbackHandler handler = rs -> {
+            try {
+                if (format == Format.CSV) {
+                    writeCsv(rs, writer);
+                } else {
+                    // writeValue(Writer, ...) закрыл бы поток после первой строки
+                    writer.write(objectMapper.writeValueAsString(toDTO(rs)));
+                }
+                writer.write('\n');
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        };
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(SALES_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(FETCH_SIZE);
+                statement.setObject(1, from);
+                statement.setObject(2, to);
+                return statement;
+            }, handler);
+        } catch (UncheckedIOException ex) {
+            // Клиент закрыл соединение: запрос прерывается вместе с курсором
+            throw ex.getCause();
+        } catch (RuntimeException ex) {
+            // Статус 200 уже отправлен, поэтому об ошибке говорит последняя строка файла
+            writer.write(INCOMPLETE_MARKER);
+            writer.write('\n');
+            writer.flush();
+            throw ex;
+        }
+        writer.flush();
+    }
+
+    private static TicketSaleDTO toDTO(ResultSet rs) throws SQLException {
+        return new TicketSaleDTO(
+                rs.getLong(1),
+                rs.getObject(2, LocalDateTime.class),
+                rs.getBoolean(3),
+                rs.getInt(4),
+                rs.getLong(5),
+                rs.getLong(6),
+                rs.getObject(7, LocalDateTime.class),
+                rs.getDouble(8),
+                rs.getLong(9),
+                rs.getString(10),
+                rs.getLong(11),
+                rs.getString(12)
+        );
+    }
+
+    // Значения пишутся прямо из ResultSet, без объекта на строку
+    private static void writeCsv(ResultSet rs, Writer writer) throws SQLException, IOException {
+        writer.write(Long.toString(rs.getLong(1)));
+        writer.write(',');
+        writer.write(rs.getObject(2, LocalDateTime.class).toString());
+        writer.write(',');
+        writer.write(Boolean.toString(rs.getBoolean(3)));
+        writer.write(',');
+        writer.write(Integer.toString(rs.getInt(4)));
+        writer.write(',');
+        writer.write(Long.toString(rs.getLong(5)));
+        writer.write(',');
+        writer.write(Long.toString(rs.getLong(6)));
+        writer.write(',');
+        writer.write(rs.getObject(7, LocalDateTime.class).toString());
+        writer.write(',');
+        // Без экспоненты: 1.0E7 табличные редакторы читают как текст
+        writer.write(BigDecimal.valueOf(rs.getDouble(8)).toPlainString());
+        writer.write(',');
+        writer.write(Long.toString(rs.getLong(9)));
+        writer.write(',');
+        writeCsvText(rs.getString(10), writer);
+        writer.write(',');
+        writer.write(Long.toString(rs.getLong(11)));
+        writer.write(',');
+        writeCsvText(rs.getString(12), writer);
+    }
+
+    // Текст, который табличный редактор принял бы за формулу (=, +, -, @, табуляция, CR в начале),
+    // пишется с апострофом впереди
+    private static void writeCsvText(String value, Writer writer) throws IOException {
+        boolean formula = !value.isEmpty() && FORMULA_START.indexOf(value.charAt(0)) >= 0;
+        if (!formula && value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        if (formula) {
+            writer.write('\'');
+        }
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
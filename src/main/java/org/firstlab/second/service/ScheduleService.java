@@ -0,0 +1,185 @@
+package org.firstlab.second.service;
+
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.firstlab.second.config.MetricsConfig;
+import org.firstlab.second.dto.HallDTO;
+import org.firstlab.second.dto.MovieDTO;
+import org.firstlab.second.dto.ScheduleSummaryDTO;
+import org.firstlab.second.dto.ScheduleTemplateDTO;
+import org.firstlab.second.dto.ScreeningDTO;
+import org.firstlab.second.entity.Hall;
+import org.firstlab.second.entity.Movie;
+import org.firstlab.second.entity.Screening;
+import org.firstlab.second.repository.HallRepository;
+import org.firstlab.second.repository.MovieRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Creates a whole schedule from a {@link ScheduleTemplateDTO} in one transaction.
+ * <p>
+ * Movies and halls are read once for the batch, every screening is checked against the hall timelines
+ * of {@link HallScheduleIndex} in memory, and the screenings are inserted in JDBC batches.
+ */
+@Service
+@Transactional
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+public class ScheduleService {
+
+    private static final int FLUSH_SIZE = 500;
+    private static final int MAX_REPORTED_CONFLICTS = 100;
+
+    private final MovieRepository movieRepository;
+    private final HallRepository hallRepository;
+    private final MovieService movieService;
+    private final HallService hallService;
+    private final EntityManager entityManager;
+    private final HallScheduleIndex hallScheduleIndex;
+    private final UpcomingScreeningIndex upcomingScreeningIndex;
+    private final BoxOfficeAnalytics boxOfficeAnalytics;
+    private final int maxScreenings;
+
+    public ScheduleService(MovieRepository movieRepository,
+                           HallRepository hallRepository,
+                           MovieService movieService,
+                           HallService hallService,
+                           EntityManager entityManager,
+                           HallScheduleIndex hallScheduleIndex,
+                           UpcomingScreeningIndex upcomingScreeningIndex,
+                           BoxOfficeAnalytics boxOfficeAnalytics,
+                           @Value("${cinema.schedule.max-batch-screenings}") int maxScreenings) {
+        this.movieRepository = movieRepository;
+        this.hallRepository = hallRepository;
+        this.movieService = movieService;
+        this.hallService = hallService;
+        this.entityManager = entityManager;
+        this.hallScheduleIndex = hallScheduleIndex;
+        this.upcomingScreeningIndex = upcomingScreeningIndex;
+        this.boxOfficeAnalytics = boxOfficeAnalytics;
+        this.maxScreenings = maxScreenings;
+    }
+
+    public ScheduleSummaryDTO createSchedule(ScheduleTemplateDTO template) {
+        if (template.getFrom().isAfter(template.getTo())) {
+            throw new RuntimeException("Start of the period must not be after its end");
+        }
+        List<Long> movieIds = template.getMovieIds();
+        List<Long> hallIds = template.getHallIds().stream().distinct().toList();
+        List<LocalTime> times = template.getTimes().stream().distinct().sorted().toList();
+        long days = ChronoUnit.DAYS.between(template.getFrom(), template.getTo()) + 1;
+        long total = days * hallIds.size() * times.size();
+        if (total > maxScreenings) {
+            throw new RuntimeException("Schedule has " + total + " screenings, at most " + maxScreenings +
+                    " can be created at once");
+        }
+
+        Map<Long, Movie> movies = movieRepository.findAllById(movieIds).stream()
+                .collect(Collectors.toMap(Movie::getId, Function.identity()));
+        for (Long movieId : movieIds) {
+            if (!movies.containsKey(movieId)) {
+                throw new RuntimeException("Movie with ID " + movieId + " not found");
+            }
+        }
+        Map<Long, Hall> halls = hallRepository.findAllById(hallIds).stream()
+                .collect(Collectors.toMap(Hall::getId, Function.identity()));
+        for (Long hallId : hallIds) {
+            if (!halls.containsKey(hallId)) {
+                throw new RuntimeException("Hall with ID " + hallId + " not found");
+            }
+        }
+
+        // Все проверки в памяти: сеансы каждого зала по времени сверяются с его расписанием и друг с другом
+        List<Screening> accepted = new ArrayList<>((int) total);
+        List<String> conflicts = new ArrayList<>();
+        int skipped = 0;
+        for (int hallIndex = 0; hallIndex < hallIds.size(); hallIndex++) {
+            Hall hall = halls.get(hallIds.get(hallIndex));
+            List<Screening> candidates = new ArrayList<>();
+            List<HallScheduleIndex.Booking> bookings = new ArrayList<>();
+            for (LocalDate day = template.getFrom(); !day.isAfter(template.getTo()); day = day.plusDays(1)) {
+                for (int timeIndex = 0; timeIndex < times.size(); timeIndex++) {
+                    Movie movie = movies.get(movieIds.get((hallIndex + timeIndex) % movieIds.size()));
+                    Screening screening = new Screening(null, movie, hall, day.atTime(times.get(timeIndex)),
+                            template.getPrice(), hall.getCapacity());
+                    candidates.add(screening);
+                    bookings.add(new HallScheduleIndex.Booking(null, movie.getId(), hall.getId(),
+                            screening.getStartTime(), movie.getDurationMinutes()));
+                }
+            }
+
+            List<String> hallConflicts = hallScheduleIndex.findConflicts(hall.getId(), bookings);
+            for (int i = 0; i < candidates.size(); i++) {
+                String conflict = hallConflicts.get(i);
+                if (conflict == null) {
+                    accepted.add(candidates.get(i));
+                    continue;
+                }
+                skipped++;
+                if (conflicts.size() < MAX_REPORTED_CONFLICTS) {
+                    conflicts.add(candidates.get(i).getStartTime() + ": " + conflict);
+                }
+            }
+        }
+
+        if (skipped > 0 && !template.isSkipConflicts()) {
+            throw new RuntimeException(skipped + " screenings of the schedule overlap, nothing was created. First: " +
+                    String.join("; ", conflicts.subList(0, Math.min(conflicts.size(), 5))));
+        }
+
+        Map<Long, MovieDTO> movieDTOs = movies.values().stream()
+                .collect(Collectors.toMap(Movie::getId, movieService::convertToDTO));
+        Map<Long, HallDTO> hallDTOs = halls.values().stream()
+                .collect(Collectors.toMap(Hall::getId, hallService::convertToDTO));
+        List<ScreeningDTO> created = insert(accepted, movieDTOs, hallDTOs);
+        upcomingScreeningIndex.putAll(created);
+        boxOfficeAnalytics.putScreenings(created);
+
+        return new ScheduleSummaryDTO(
+                created.size(),
+                skipped,
+                created.stream().map(ScreeningDTO::getStartTime).min(Comparator.naturalOrder()).orElse(null),
+                created.stream().map(ScreeningDTO::getStartTime).max(Comparator.naturalOrder()).orElse(null),
+                conflicts
+        );
+    }
+
+    /**
+     * Persists the screenings in chunks. Ids come from the pooled sequence, so Hibernate sends the inserts
+     * in JDBC batches of jdbc.batch_size; clearing after every chunk keeps the persistence context small.
+     */
+    private List<ScreeningDTO> insert(List<Screening> screenings, Map<Long, MovieDTO> movies, Map<Long, HallDTO> halls) {
+        List<ScreeningDTO> created = new ArrayList<>(screenings.size());
+        List<HallScheduleIndex.Booking> bookings = new ArrayList<>(screenings.size());
+        for (int i = 0; i < screenings.size(); i++) {
+            Screening screening = screenings.get(i);
+            entityManager.persist(screening);
+            MovieDTO movie = movies.get(screening.getMovie().getId());
+            HallDTO hall = halls.get(screening.getHall().getId());
+            created.add(new ScreeningDTO(screening.getId(), movie.getId(), hall.getId(), screening.getStartTime(),
+                    screening.getPrice(), screening.getAvailableSeats(), movie, hall));
+            bookings.add(new HallScheduleIndex.Booking(screening.getId(), movie.getId(), hall.getId(),
+                    screening.getStartTime(), movie.getDurationMinutes()));
+            if ((i + 1) % FLUSH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        // Сеанс, созданный другим запросом после проверки, откатывает всё расписание
+        hallScheduleIndex.placeAll(bookings);
+        entityManager.flush();
+        entityManager.clear();
+        return created;
+    }
+}
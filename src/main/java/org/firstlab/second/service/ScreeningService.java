@@ -1,21 +1,32 @@
 package org.firstlab.second.service;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.firstlab.second.config.MetricsConfig;
+import org.firstlab.second.dto.HallDTO;
+import org.firstlab.second.dto.MovieDTO;
 import org.firstlab.second.dto.ScreeningDTO;
-import org.firstlab.second.entity.Hall;
-import org.firstlab.second.entity.Movie;
+import org.firstlab.second.dto.SeatMapDTO;
 import org.firstlab.second.entity.Screening;
 import org.firstlab.second.repository.HallRepository;
 import org.firstlab.second.repository.MovieRepository;
 import org.firstlab.second.repository.ScreeningRepository;
+import org.hibernate.Hibernate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
 public class ScreeningService {
 
     private final ScreeningRepository screeningRepository;
@@ -23,43 +34,72 @@ public class ScreeningService {
     private final HallRepository hallRepository;
     private final MovieService movieService;
     private final HallService hallService;
+    private final SeatOccupancyService seatOccupancyService;
+    private final EntityManager entityManager;
+    private final UpcomingScreeningIndex upcomingScreeningIndex;
+    private final BoxOfficeAnalytics boxOfficeAnalytics;
+    private final HallScheduleIndex hallScheduleIndex;
+    private final CustomerHistoryService customerHistoryService;
 
     public ScreeningService(ScreeningRepository screeningRepository,
                            MovieRepository movieRepository,
                            HallRepository hallRepository,
                            MovieService movieService,
-                           HallService hallService) {
+                           HallService hallService,
+                           SeatOccupancyService seatOccupancyService,
+                           EntityManager entityManager,
+                           UpcomingScreeningIndex upcomingScreeningIndex,
+                           BoxOfficeAnalytics boxOfficeAnalytics,
+                           HallScheduleIndex hallScheduleIndex,
+                           CustomerHistoryService customerHistoryService) {
         this.screeningRepository = screeningRepository;
         this.movieRepository = movieRepository;
         this.hallRepository = hallRepository;
         this.movieService = movieService;
         this.hallService = hallService;
+        this.seatOccupancyService = seatOccupancyService;
+        this.entityManager = entityManager;
+        this.upcomingScreeningIndex = upcomingScreeningIndex;
+        this.boxOfficeAnalytics = boxOfficeAnalytics;
+        this.hallScheduleIndex = hallScheduleIndex;
+        this.customerHistoryService = customerHistoryService;
     }
 
     public ScreeningDTO createScreening(ScreeningDTO screeningDTO) {
-        Movie movie = movieRepository.findById(screeningDTO.getMovieId())
-                .orElseThrow(() -> new RuntimeException("Movie with ID " + screeningDTO.getMovieId() + " not found"));
-
-        Hall hall = hallRepository.findById(screeningDTO.getHallId())
-                .orElseThrow(() -> new RuntimeException("Hall with ID " + screeningDTO.getHallId() + " not found"));
+        // Фильм и зал берутся из кэша, в сеанс кладутся только ссылки на них
+        MovieDTO movie = movieService.getMovieById(screeningDTO.getMovieId());
+        HallDTO hall = hallService.getHallById(screeningDTO.getHallId());
 
         Screening screening = new Screening();
-        screening.setMovie(movie);
-        screening.setHall(hall);
+        screening.setMovie(movieRepository.getReferenceById(movie.getId()));
+        screening.setHall(hallRepository.getReferenceById(hall.getId()));
         screening.setStartTime(screeningDTO.getStartTime());
         screening.setPrice(screeningDTO.getPrice());
         screening.setAvailableSeats(hall.getCapacity());
 
         Screening savedScreening = screeningRepository.save(screening);
-        return convertToDTO(savedScreening, true);
+        // Пересечение с другим сеансом в зале откатывает транзакцию
+        hallScheduleIndex.place(savedScreening.getId(), movie.getId(), hall.getId(),
+                savedScreening.getStartTime(), movie.getDurationMinutes());
+        ScreeningDTO dto = convertToDTO(savedScreening, false);
+        dto.setMovie(movie);
+        dto.setHall(hall);
+        upcomingScreeningIndex.put(dto);
+        boxOfficeAnalytics.putScreening(dto);
+        return dto;
     }
 
-    public List<ScreeningDTO> getAllScreenings() {
-        return screeningRepository.findAll().stream()
+    public List<ScreeningDTO> getAllScreenings(Long after, int limit) {
+        return screeningRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(limit)).stream()
                 .map(s -> convertToDTO(s, true))
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public void streamAllScreenings(Consumer<ScreeningDTO> consumer) {
+        EntityStreams.forEach(screeningRepository.streamAll(), entityManager, s -> convertToDTO(s, true), consumer);
+    }
+
     public ScreeningDTO getScreeningById(Long id) {
         Screening screening = screeningRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Screening with ID " + id + " not found"));
@@ -71,15 +111,13 @@ public class ScreeningService {
                 .orElseThrow(() -> new RuntimeException("Screening with ID " + id + " not found"));
 
         if (screeningDTO.getMovieId() != null) {
-            Movie movie = movieRepository.findById(screeningDTO.getMovieId())
-                    .orElseThrow(() -> new RuntimeException("Movie with ID " + screeningDTO.getMovieId() + " not found"));
-            screening.setMovie(movie);
+            MovieDTO movie = movieService.getMovieById(screeningDTO.getMovieId());
+            screening.setMovie(movieRepository.getReferenceById(movie.getId()));
         }
 
         if (screeningDTO.getHallId() != null) {
-            Hall hall = hallRepository.findById(screeningDTO.getHallId())
-                    .orElseThrow(() -> new RuntimeException("Hall with ID " + screeningDTO.getHallId() + " not found"));
-            screening.setHall(hall);
+            HallDTO hall = hallService.getHallById(screeningDTO.getHallId());
+            screening.setHall(hallRepository.getReferenceById(hall.getId()));
         }
 
         if (screeningDTO.getStartTime() != null) {
@@ -91,7 +129,13 @@ public class ScreeningService {
         }
 
         Screening updatedScreening = screeningRepository.save(screening);
-        return convertToDTO(updatedScreening, true);
+        ScreeningDTO dto = convertToDTO(updatedScreening, true);
+        hallScheduleIndex.place(dto.getId(), dto.getMovieId(), dto.getHallId(),
+                dto.getStartTime(), dto.getMovie().getDurationMinutes());
+        upcomingScreeningIndex.put(dto);
+        boxOfficeAnalytics.putScreening(dto);
+        customerHistoryService.refreshScreening(dto);
+        return dto;
     }
 
     public void deleteScreening(Long id) {
@@ -99,14 +143,49 @@ public class ScreeningService {
             throw new RuntimeException("Screening with ID " + id + " not found");
         }
         screeningRepository.deleteById(id);
+        seatOccupancyService.evict(id);
+        upcomingScreeningIndex.remove(id);
+        boxOfficeAnalytics.removeScreening(id);
+        hallScheduleIndex.remove(id);
+    }
+
+    /**
+     * Occupied seats as a bitmap, copied from the in-memory seat map.
+     * The database is only queried when the screening has no seat map loaded yet.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public SeatMapDTO getSeatMap(Long id) {
+        SeatMap seatMap = seatOccupancyService.findLoadedSeatMap(id);
+        if (seatMap == null) {
+            Screening screening = screeningRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Screening with ID " + id + " not found"));
+            seatMap = seatOccupancyService.getSeatMap(screening);
+        }
+        SeatMap.Snapshot snapshot = seatMap.snapshot();
+        return new SeatMapDTO(id, snapshot.capacity(), snapshot.occupiedSeats(), snapshot.version(), snapshot.seats());
     }
 
+    /**
+     * Served from {@link UpcomingScreeningIndex} without touching the database once the index is loaded.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<ScreeningDTO> getUpcomingScreenings() {
+        if (upcomingScreeningIndex.isReady()) {
+            return upcomingScreeningIndex.getUpcoming(LocalDateTime.now());
+        }
         return screeningRepository.findUpcomingScreenings(LocalDateTime.now()).stream()
                 .map(s -> convertToDTO(s, true))
                 .collect(Collectors.toList());
     }
 
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadUpcomingScreenings() {
+        upcomingScreeningIndex.load(screeningRepository.findUpcomingScreenings(LocalDateTime.now()).stream()
+                .map(s -> convertToDTO(s, true))
+                .collect(Collectors.toList()));
+    }
+
     public List<ScreeningDTO> getScreeningsByMovie(Long movieId) {
         return screeningRepository.findByMovieId(movieId).stream()
                 .map(s -> convertToDTO(s, true))
@@ -119,7 +198,7 @@ public class ScreeningService {
                 .collect(Collectors.toList());
     }
 
-    private ScreeningDTO convertToDTO(Screening screening, boolean includeDetails) {
+    ScreeningDTO convertToDTO(Screening screening, boolean includeDetails) {
         ScreeningDTO dto = new ScreeningDTO();
         dto.setId(screening.getId());
         dto.setMovieId(screening.getMovie().getId());
@@ -128,9 +207,14 @@ public class ScreeningService {
         dto.setPrice(screening.getPrice());
         dto.setAvailableSeats(screening.getAvailableSeats());
 
+        // Если фильм или зал не загружены (ленивая ссылка), берём их из кэша, а не отдельным запросом
         if (includeDetails) {
-            dto.setMovie(movieService.getMovieById(screening.getMovie().getId()));
-            dto.setHall(hallService.getHallById(screening.getHall().getId()));
+            dto.setMovie(Hibernate.isInitialized(screening.getMovie())
+                    ? movieService.convertToDTO(screening.getMovie())
+                    : movieService.getMovieById(dto.getMovieId()));
+            dto.setHall(Hibernate.isInitialized(screening.getHall())
+                    ? hallService.convertToDTO(screening.getHall())
+                    : hallService.getHallById(dto.getHallId()));
         }
 
         return dto;
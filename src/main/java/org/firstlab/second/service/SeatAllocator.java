@@ -0,0 +1,74 @@
+package org.firstlab.second.service;
+
+import org.firstlab.second.dto.HallRowDTO;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Finds the best block of adjacent free seats in a hall with a row layout.
+ * <p>
+ * Each row's occupancy is one 64-bit word taken from the {@link SeatMap}. The start positions of all free
+ * runs of n seats come out of log2(n) shift-and-AND steps on the free mask, so a row is scanned without
+ * looking at seats one by one. A block scores its row quality, reduced by up to {@link #CENTER_WEIGHT}
+ * of it as the block moves from the middle of the row to its edge. Ties go to the earlier row and seat.
+ */
+final class SeatAllocator {
+
+    static final double CENTER_WEIGHT = 0.5;
+
+    private SeatAllocator() {
+    }
+
+    /**
+     * Returns the seat numbers of the best block of {@code count} adjacent free seats, or an empty list
+     * if no row has one. Only rows of the given section are considered when it is not {@code null}.
+     */
+    static List<Integer> findBest(SeatMap seatMap, List<HallRowDTO> rows, int count, String section) {
+        int bestStart = 0;
+        double bestScore = Double.NEGATIVE_INFINITY;
+
+        for (HallRowDTO row : rows) {
+            int length = row.getSeats();
+            if (count > length || section != null && !section.equalsIgnoreCase(row.getSection())) {
+                continue;
+            }
+            long rowMask = length == 64 ? -1L : (1L << length) - 1;
+            long free = ~seatMap.occupancy(row.getFirstSeat(), length) & rowMask;
+            long starts = runStarts(free, count);
+
+            while (starts != 0) {
+                int start = Long.numberOfTrailingZeros(starts);
+                starts &= starts - 1;
+                // Distance of the block center from the row center, 0 in the middle and close to 1 at the edge
+                double offset = Math.abs(2.0 * start + count - length) / length;
+                double score = row.getQuality() * (1 - CENTER_WEIGHT * offset);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestStart = row.getFirstSeat() + start;
+                }
+            }
+        }
+
+        if (bestScore == Double.NEGATIVE_INFINITY) {
+            return List.of();
+        }
+        return IntStream.range(bestStart, bestStart + count).boxed().toList();
+    }
+
+    /**
+     * Bit i of the result is set when bits i..i+count-1 of free are all set.
+     */
+    static long runStarts(long free, int count) {
+        long runs = free;
+        int covered = 1;
+        while (covered * 2 <= count) {
+            runs &= runs >>> covered;
+            covered *= 2;
+        }
+        if (covered < count) {
+            runs &= runs >>> (count - covered);
+        }
+        return runs;
+    }
+}
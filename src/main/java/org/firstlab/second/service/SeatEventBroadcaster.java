@@ -0,0 +1,235 @@
+package org.firstlab.second.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.firstlab.second.dto.SeatAvailabilityDTO;
+import org.firstlab.second.dto.SeatMapDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes seat availability of a screening to its SSE subscribers.
+ * <p>
+ * Committed {@link TicketEvent}s are merged per screening and flushed on a fixed delay, so a burst of
+ * sales becomes one event per flush interval carrying all taken and released seats. Each event is
+ * serialized once and handed to every subscriber's bounded queue; a subscriber whose queue is full
+ * is too slow to keep up and gets disconnected, it can reconnect and start from a fresh state.
+ */
+@Service
+public class SeatEventBroadcaster {
+
+    static final String SEATS_EVENT = "seats";
+
+    private final ScreeningService screeningService;
+    private final ObjectMapper objectMapper;
+    private final int queueSize;
+    private final long emitterTimeoutMillis;
+    private final Counter droppedSubscribers;
+
+    private final ConcurrentMap<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, PendingChanges> pending = new ConcurrentHashMap<>();
+    // Sending blocks on the client's socket, every subscriber drains on its own virtual thread
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    public SeatEventBroadcaster(ScreeningService screeningService,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${cinema.events.subscriber-queue-size}") int queueSize,
+                                @Value("${cinema.events.emitter-timeout-ms}") long emitterTimeoutMillis) {
+        this.screeningService = screeningService;
+        this.objectMapper = objectMapper;
+        this.queueSize = queueSize;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.droppedSubscribers = meterRegistry.counter("cinema.events.dropped.subscribers");
+        meterRegistry.gauge("cinema.events.subscribers", subscribers,
+                map -> map.values().stream().mapToInt(Set::size).sum());
+    }
+
+    /**
+     * Registers a subscriber and sends it the current availability right away.
+     */
+    public SseEmitter subscribe(Long screeningId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = new Subscriber(screeningId, emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(ex -> subscriber.close());
+
+        // Registered before reading the current state, so no change committed in between is missed.
+        // Added under the entry lock like the removal in close(), so it never lands in a set just dropped from the map
+        subscribers.compute(screeningId, (id, targets) -> {
+            Set<Subscriber> result = targets != null ? targets : ConcurrentHashMap.newKeySet();
+            result.add(subscriber);
+            return result;
+        });
+        try {
+            subscriber.offer(toEvent(availability(screeningId, Set.of(), Set.of())));
+        } catch (RuntimeException ex) {
+            subscriber.close();
+            throw ex;
+        }
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTicketEvent(TicketEvent event) {
+        if (!subscribers.containsKey(event.screeningId())) {
+            return;
+        }
+        // compute() and the remove() in flush() lock the same entry, so no change lands in an already flushed batch
+        pending.compute(event.screeningId(), (id, changes) -> {
+            PendingChanges merged = changes != null ? changes : new PendingChanges();
+            merged.add(event);
+            return merged;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${cinema.events.flush-interval-ms}")
+    public void flush() {
+        for (Long screeningId : new ArrayList<>(pending.keySet())) {
+            PendingChanges changes = pending.remove(screeningId);
+            Set<Subscriber> targets = subscribers.get(screeningId);
+            if (changes == null || targets == null || targets.isEmpty()) {
+                continue;
+            }
+            try {
+                Set<ResponseBodyEmitter.DataWithMediaType> event =
+                        toEvent(availability(screeningId, changes.taken, changes.released));
+                targets.forEach(subscriber -> subscriber.offer(event));
+            } catch (RuntimeException ex) {
+                // Сеанс удалён или недоступен: отключаем подписчиков, а не повторяем каждую итерацию
+                targets.forEach(subscriber -> subscriber.emitter.complete());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cinema.events.heartbeat-interval-ms}")
+    public void heartbeat() {
+        Set<ResponseBodyEmitter.DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+        subscribers.values().forEach(targets -> targets.forEach(subscriber -> subscriber.offer(ping)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(targets -> targets.forEach(subscriber -> subscriber.emitter.complete()));
+        senders.shutdownNow();
+    }
+
+    private SeatAvailabilityDTO availability(Long screeningId, Set<Integer> taken, Set<Integer> released) {
+        SeatMapDTO seatMap = screeningService.getSeatMap(screeningId);
+        return new SeatAvailabilityDTO(
+                screeningId,
+                seatMap.getCapacity() - seatMap.getOccupiedSeats(),
+                new ArrayList<>(taken),
+                new ArrayList<>(released)
+        );
+    }
+
+    private Set<ResponseBodyEmitter.DataWithMediaType> toEvent(SeatAvailabilityDTO availability) {
+        try {
+            return SseEmitter.event()
+                    .name(SEATS_EVENT)
+                    .data(objectMapper.writeValueAsString(availability))
+                    .build();
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Seats taken and released since the last flush. A seat taken and released within the same interval
+     * cancels out.
+     */
+    private static final class PendingChanges {
+
+        private final Set<Integer> taken = new LinkedHashSet<>();
+        private final Set<Integer> released = new LinkedHashSet<>();
+
+        void add(TicketEvent event) {
+            Set<Integer> added = event.kind().takesSeats() ? taken : released;
+            Set<Integer> opposite = event.kind().takesSeats() ? released : taken;
+            for (Integer seat : event.seatNumbers()) {
+                if (!opposite.remove(seat)) {
+                    added.add(seat);
+                }
+            }
+        }
+    }
+
+    private final class Subscriber {
+
+        private final Long screeningId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Subscriber(Long screeningId, SseEmitter emitter) {
+            this.screeningId = screeningId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(queueSize);
+        }
+
+        void offer(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                droppedSubscribers.increment();
+                close();
+                emitter.complete();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (!queue.isEmpty() && !closed && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Set<ResponseBodyEmitter.DataWithMediaType> event;
+                while (!closed && (event = queue.poll()) != null) {
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException ex) {
+                // The client went away, the emitter completes itself and calls close()
+                close();
+            } finally {
+                draining.set(false);
+            }
+            scheduleDrain();
+        }
+
+        void close() {
+            closed = true;
+            queue.clear();
+            subscribers.computeIfPresent(screeningId, (id, targets) -> {
+                targets.remove(this);
+                return targets.isEmpty() ? null : targets;
+            });
+        }
+    }
+}
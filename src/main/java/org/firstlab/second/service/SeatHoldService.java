@@ -0,0 +1,232 @@
+package org.firstlab.second.service;
+
+import io.micrometer.core.annotation.Timed;
+import org.firstlab.second.config.MetricsConfig;
+import org.firstlab.second.dto.SeatHoldDTO;
+import org.firstlab.second.dto.SeatHoldRequest;
+import org.firstlab.second.entity.Screening;
+import org.firstlab.second.repository.CustomerRepository;
+import org.firstlab.second.repository.ScreeningRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Short-lived seat reservations for a customer's checkout.
+ * <p>
+ * Held seats are claimed in the screening's {@link SeatMap}, so nobody else can buy them, but no ticket
+ * exists and the screening's seat counter is untouched until the hold is converted by
+ * {@link TicketService}. Holds live only in memory: they are indexed by id here, by screening in
+ * {@link SeatOccupancyService}, and by expiry in a delay queue that a sweeper drains in bulk.
+ */
+@Service
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
+public class SeatHoldService {
+
+    private final ScreeningRepository screeningRepository;
+    private final CustomerRepository customerRepository;
+    private final SeatOccupancyService seatOccupancyService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int defaultMinutes;
+
+    private final ConcurrentMap<UUID, SeatHold> holds = new ConcurrentHashMap<>();
+    private final DelayQueue<Expiry> expiries = new DelayQueue<>();
+
+    public SeatHoldService(ScreeningRepository screeningRepository,
+                           CustomerRepository customerRepository,
+                           SeatOccupancyService seatOccupancyService,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${cinema.holds.default-minutes}") int defaultMinutes) {
+        this.screeningRepository = screeningRepository;
+        this.customerRepository = customerRepository;
+        this.seatOccupancyService = seatOccupancyService;
+        this.eventPublisher = eventPublisher;
+        this.defaultMinutes = defaultMinutes;
+    }
+
+    public SeatHoldDTO createHold(SeatHoldRequest request) {
+        Screening screening = screeningRepository.findById(request.getScreeningId())
+                .orElseThrow(() -> new RuntimeException("Screening with ID " + request.getScreeningId() + " not found"));
+
+        if (!customerRepository.existsById(request.getCustomerId())) {
+            throw new RuntimeException("Customer with ID " + request.getCustomerId() + " not found");
+        }
+
+        if (LocalDateTime.now().isAfter(screening.getStartTime())) {
+            throw new RuntimeException("Impossible to hold seats after the screening has started");
+        }
+
+        List<Integer> seatNumbers = List.copyOf(request.getSeatNumbers());
+        if (seatNumbers.stream().distinct().count() != seatNumbers.size()) {
+            throw new RuntimeException("Duplicate seat numbers in request are not allowed");
+        }
+
+        SeatMap seatMap = seatOccupancyService.getSeatMap(screening);
+        for (Integer seatNumber : seatNumbers) {
+            if (!seatMap.contains(seatNumber)) {
+                throw new RuntimeException("Seat number " + seatNumber + " is out of bounds");
+            }
+        }
+
+        List<Integer> conflictingSeats = seatOccupancyService.hold(screening, seatNumbers);
+        if (!conflictingSeats.isEmpty()) {
+            throw new RuntimeException("The following seats are already taken: " + conflictingSeats);
+        }
+
+        Duration duration = Duration.ofMinutes(request.getMinutes() != null ? request.getMinutes() : defaultMinutes);
+        SeatHold hold = new SeatHold(
+                UUID.randomUUID(),
+                screening.getId(),
+                request.getCustomerId(),
+                seatNumbers,
+                LocalDateTime.now().plus(duration),
+                System.nanoTime() + duration.toNanos()
+        );
+        holds.put(hold.id(), hold);
+        expiries.add(new Expiry(hold.id(), hold.deadline()));
+        eventPublisher.publishEvent(new TicketEvent(TicketEvent.Kind.HELD, hold.screeningId(), hold.customerId(), seatNumbers));
+        return convertToDTO(hold);
+    }
+
+    public SeatHoldDTO getHold(UUID id) {
+        SeatHold hold = holds.get(id);
+        if (hold == null || hold.isExpired()) {
+            throw new RuntimeException("Hold with ID " + id + " not found");
+        }
+        return convertToDTO(hold);
+    }
+
+    public void releaseHold(UUID id) {
+        SeatHold hold = holds.remove(id);
+        if (hold == null) {
+            throw new RuntimeException("Hold with ID " + id + " not found");
+        }
+        release(hold);
+    }
+
+    /**
+     * Takes the seats out of the hold for tickets created in the current transaction. The seats stay claimed,
+     * so the caller doesn't check them again. If the transaction rolls back they go back to the hold, or are
+     * released if the hold has expired by then.
+     */
+    void convert(UUID holdId, Long customerId, Long screeningId, Collection<Integer> seatNumbers) {
+        List<Integer> converted = List.copyOf(seatNumbers);
+        SeatHold[] taken = new SeatHold[1];
+        holds.compute(holdId, (id, hold) -> {
+            if (hold == null || hold.isExpired()) {
+                throw new RuntimeException("Hold with ID " + holdId + " not found or expired");
+            }
+            if (!hold.customerId().equals(customerId) || !hold.screeningId().equals(screeningId)) {
+                throw new RuntimeException("Hold with ID " + holdId + " was made for another customer or screening");
+            }
+            if (!hold.seatNumbers().containsAll(converted)) {
+                throw new RuntimeException("Seats " + converted + " are not all held by hold with ID " + holdId);
+            }
+            taken[0] = hold.withSeatNumbers(converted);
+            List<Integer> remaining = hold.seatNumbers().stream()
+                    .filter(seat -> !converted.contains(seat))
+                    .toList();
+            return remaining.isEmpty() ? null : hold.withSeatNumbers(remaining);
+        });
+        SeatMap seatMap = seatOccupancyService.convertHeld(screeningId, converted);
+        TransactionHooks.afterRollback(() -> restore(taken[0], seatMap));
+    }
+
+    /**
+     * Gives the seats of a rolled back conversion back to their hold. An expired hold is not revived,
+     * its seats are released as the sweeper would have done.
+     */
+    private void restore(SeatHold converted, SeatMap seatMap) {
+        if (converted.isExpired()) {
+            seatOccupancyService.releaseConverted(seatMap, converted.seatNumbers());
+            eventPublisher.publishEvent(new TicketEvent(TicketEvent.Kind.HOLD_RELEASED,
+                    converted.screeningId(), converted.customerId(), converted.seatNumbers()));
+            return;
+        }
+        List<Integer> restored = seatOccupancyService.restoreHeld(converted.screeningId(), seatMap, converted.seatNumbers());
+        if (restored.isEmpty()) {
+            return;
+        }
+        holds.merge(converted.id(), converted.withSeatNumbers(restored), (current, back) ->
+                current.withSeatNumbers(Stream.concat(current.seatNumbers().stream(), back.seatNumbers().stream())
+                        .distinct()
+                        .toList()));
+        // Пока удержания не было, сборщик мог выбрать его запись из очереди; лишнюю запись он потом пропустит
+        expiries.add(new Expiry(converted.id(), converted.deadline()));
+    }
+
+    /**
+     * Releases every hold whose time is up. Entries of holds that were converted or released
+     * in the meantime are skipped.
+     */
+    @Scheduled(fixedDelayString = "${cinema.holds.sweep-interval-ms}")
+    public void releaseExpiredHolds() {
+        List<Expiry> expired = new ArrayList<>();
+        expiries.drainTo(expired);
+        for (Expiry expiry : expired) {
+            SeatHold hold = holds.get(expiry.holdId());
+            if (hold != null && hold.isExpired() && holds.remove(expiry.holdId(), hold)) {
+                release(hold);
+            }
+        }
+    }
+
+    private void release(SeatHold hold) {
+        seatOccupancyService.releaseHeld(hold.screeningId(), hold.seatNumbers());
+        eventPublisher.publishEvent(new TicketEvent(TicketEvent.Kind.HOLD_RELEASED,
+                hold.screeningId(), hold.customerId(), hold.seatNumbers()));
+    }
+
+    private SeatHoldDTO convertToDTO(SeatHold hold) {
+        return new SeatHoldDTO(
+                hold.id(),
+                hold.screeningId(),
+                hold.customerId(),
+                hold.seatNumbers(),
+                hold.expiresAt()
+        );
+    }
+
+    private record SeatHold(UUID id,
+                            Long screeningId,
+                            Long customerId,
+                            List<Integer> seatNumbers,
+                            LocalDateTime expiresAt,
+                            long deadline) {
+
+        boolean isExpired() {
+            return System.nanoTime() - deadline >= 0;
+        }
+
+        SeatHold withSeatNumbers(List<Integer> remaining) {
+            return new SeatHold(id, screeningId, customerId, remaining, expiresAt, deadline);
+        }
+    }
+
+    private record Expiry(UUID holdId, long deadline) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.signum(deadline - ((Expiry) other).deadline);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.firstlab.second.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Occupancy bitmap of a single screening: bit {@code n - 1} is set when seat {@code n} is taken.
+ * Seat numbers are 1-based and go up to the hall capacity.
+ * <p>
+ * Seats are claimed with compare-and-set on the word holding their bit, so buyers of different
+ * seats never block each other and a buyer losing a race for the same seat fails immediately.
+ * <p>
+ * Every change bumps the version. Together with the generation, which is unique per map instance,
+ * it identifies the occupancy state, so a rebuilt map never repeats an earlier version.
+ */
+public class SeatMap {
+
+    // Seeded with the start time so generations don't repeat across restarts
+    private static final AtomicLong GENERATIONS = new AtomicLong(System.currentTimeMillis());
+
+    private final int capacity;
+    private final AtomicLongArray words;
+    private final AtomicInteger occupied = new AtomicInteger();
+    private final long generation = GENERATIONS.incrementAndGet();
+    private final AtomicLong version = new AtomicLong();
+
+    SeatMap(int capacity, int[] takenSeats) {
+        this.capacity = capacity;
+        this.words = new AtomicLongArray((capacity + 63) >>> 6);
+        for (int seat : takenSeats) {
+            if (contains(seat)) {
+                tryClaim(seat);
+            }
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public boolean contains(int seatNumber) {
+        return seatNumber >= 1 && seatNumber <= capacity;
+    }
+
+    public boolean isFree(int seatNumber) {
+        checkBounds(seatNumber);
+        int bit = seatNumber - 1;
+        return (words.get(bit >>> 6) & (1L << bit)) == 0;
+    }
+
+    public int freeSeats() {
+        return capacity - occupied.get();
+    }
+
+    public int occupiedSeats() {
+        return occupied.get();
+    }
+
+    /**
+     * Occupancy of {@code length} consecutive seats starting at {@code firstSeat}, at most 64 of them:
+     * bit {@code i} is set when seat {@code firstSeat + i} is taken. Read without locking, so a seat changing
+     * meanwhile may show either state.
+     */
+    long occupancy(int firstSeat, int length) {
+        checkBounds(firstSeat);
+        checkBounds(firstSeat + length - 1);
+        int bit = firstSeat - 1;
+        int index = bit >>> 6;
+        int offset = bit & 63;
+        long bits = words.get(index) >>> offset;
+        if (offset + length > 64) {
+            bits |= words.get(index + 1) << (64 - offset);
+        }
+        return length == 64 ? bits : bits & ((1L << length) - 1);
+    }
+
+    /**
+     * Copies the bitmap into bytes, seat {@code n} is bit {@code (n - 1) % 8} of byte {@code (n - 1) / 8}.
+     * The copy is retried while seats change under it, so the bytes are never older than the version.
+     */
+    public Snapshot snapshot() {
+        byte[] seats = new byte[(capacity + 7) >>> 3];
+        long before;
+        int occupiedSeats;
+        do {
+            before = version.get();
+            occupiedSeats = occupied.get();
+            for (int i = 0; i < words.length(); i++) {
+                long word = words.get(i);
+                for (int b = 0; b < 8 && (i << 3) + b < seats.length; b++) {
+                    seats[(i << 3) + b] = (byte) (word >>> (b << 3));
+                }
+            }
+        } while (version.get() != before);
+        return new Snapshot(capacity, occupiedSeats, Long.toHexString(generation) + "-" + before, seats);
+    }
+
+    /**
+     * Atomically marks the seat as taken. Returns {@code false} if somebody else already holds it.
+     */
+    boolean tryClaim(int seatNumber) {
+        checkBounds(seatNumber);
+        int bit = seatNumber - 1;
+        int index = bit >>> 6;
+        long mask = 1L << bit;
+        long current;
+        do {
+            current = words.get(index);
+            if ((current & mask) != 0) {
+                return false;
+            }
+        } while (!words.compareAndSet(index, current, current | mask));
+        occupied.incrementAndGet();
+        version.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Claims all seats or none of them. Returns the seats that were already taken,
+     * an empty list means every seat was claimed.
+     */
+    List<Integer> tryClaimAll(Collection<Integer> seatNumbers) {
+        List<Integer> claimed = new ArrayList<>(seatNumbers.size());
+        List<Integer> conflicts = new ArrayList<>();
+        for (Integer seatNumber : seatNumbers) {
+            if (tryClaim(seatNumber)) {
+                claimed.add(seatNumber);
+            } else {
+                conflicts.add(seatNumber);
+            }
+        }
+        if (!conflicts.isEmpty()) {
+            claimed.forEach(this::release);
+        }
+        return conflicts;
+    }
+
+    /**
+     * Atomically marks the seat as free. Returns {@code false} if it already was.
+     */
+    boolean release(int seatNumber) {
+        checkBounds(seatNumber);
+        int bit = seatNumber - 1;
+        int index = bit >>> 6;
+        long mask = 1L << bit;
+        long current;
+        do {
+            current = words.get(index);
+            if ((current & mask) == 0) {
+                return false;
+            }
+        } while (!words.compareAndSet(index, current, current & ~mask));
+        occupied.decrementAndGet();
+        version.incrementAndGet();
+        return true;
+    }
+
+    public record Snapshot(int capacity, int occupiedSeats, String version, byte[] seats) {
+    }
+
+    private void checkBounds(int seatNumber) {
+        if (!contains(seatNumber)) {
+            throw new IllegalArgumentException("Seat number " + seatNumber + " is out of bounds");
+        }
+    }
+}
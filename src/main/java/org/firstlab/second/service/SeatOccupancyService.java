@@ -0,0 +1,209 @@
+package org.firstlab.second.service;
+
+import org.firstlab.second.dto.HallRowDTO;
+import org.firstlab.second.entity.Screening;
+import org.firstlab.second.repository.TicketRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.IntStream;
+
+/**
+ * Keeps a {@link SeatMap} per screening so seat checks don't have to load the screening's tickets.
+ * A map is built from the active tickets the first time a screening is touched and is rebuilt
+ * when the hall capacity no longer matches.
+ * <p>
+ * Claims are the in-memory half of seat reservation; the partial unique index on active tickets
+ * is the durable half and catches anything the bitmap could not see.
+ * <p>
+ * Seats held by {@link SeatHoldService} are claimed as well and kept per screening here,
+ * so a bitmap rebuilt from the database still has them taken.
+ */
+@Service
+public class SeatOccupancyService {
+
+    private static final int BEST_AVAILABLE_ATTEMPTS = 3;
+
+    private final TicketRepository ticketRepository;
+    private final ConcurrentMap<Long, SeatMap> seatMaps = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Set<Integer>> heldSeats = new ConcurrentHashMap<>();
+
+    public SeatOccupancyService(TicketRepository ticketRepository) {
+        this.ticketRepository = ticketRepository;
+    }
+
+    public SeatMap getSeatMap(Screening screening) {
+        int capacity = screening.getHall().getCapacity();
+        SeatMap seatMap = seatMaps.get(screening.getId());
+        if (seatMap != null && seatMap.getCapacity() == capacity) {
+            return seatMap;
+        }
+        // Loaded outside compute(): the query must not run while holding the map's bin lock,
+        // that would pin virtual threads. A concurrent loader may win, then this copy is dropped.
+        int[] takenSeats = IntStream.concat(
+                Arrays.stream(ticketRepository.findActiveSeatNumbers(screening.getId())),
+                heldSeats.getOrDefault(screening.getId(), Set.of()).stream().mapToInt(Integer::intValue)
+        ).toArray();
+        SeatMap loaded = new SeatMap(capacity, takenSeats);
+        return seatMaps.compute(screening.getId(), (id, existing) ->
+                existing != null && existing.getCapacity() == capacity ? existing : loaded);
+    }
+
+    /**
+     * Seat map already held in memory, {@code null} if the screening hasn't been touched since it was (re)loaded.
+     * Unlike {@link #getSeatMap(Screening)} it doesn't check the hall capacity.
+     */
+    public SeatMap findLoadedSeatMap(Long screeningId) {
+        return seatMaps.get(screeningId);
+    }
+
+    /**
+     * Claims the seat for the current transaction. The claim is given back if the transaction rolls back.
+     */
+    public boolean claim(Screening screening, int seatNumber) {
+        SeatMap seatMap = getSeatMap(screening);
+        if (!seatMap.tryClaim(seatNumber)) {
+            return false;
+        }
+        TransactionHooks.afterRollback(() -> seatMap.release(seatNumber));
+        return true;
+    }
+
+    /**
+     * Claims all seats or none. Returns the conflicting seats, empty when the claim succeeded.
+     */
+    public List<Integer> claimAll(Screening screening, Collection<Integer> seatNumbers) {
+        SeatMap seatMap = getSeatMap(screening);
+        List<Integer> conflicts = seatMap.tryClaimAll(seatNumbers);
+        if (conflicts.isEmpty()) {
+            TransactionHooks.afterRollback(() -> seatNumbers.forEach(seatMap::release));
+        }
+        return conflicts;
+    }
+
+    /**
+     * Claims the best block of {@code count} adjacent free seats in the laid out rows, see {@link SeatAllocator}.
+     * Returns the claimed seats, empty when no row has enough adjacent free seats.
+     */
+    public List<Integer> claimBestAvailable(Screening screening, List<HallRowDTO> rows, int count, String section) {
+        SeatMap seatMap = getSeatMap(screening);
+        for (int attempt = 0; attempt < BEST_AVAILABLE_ATTEMPTS; attempt++) {
+            List<Integer> seats = SeatAllocator.findBest(seatMap, rows, count, section);
+            if (seats.isEmpty()) {
+                return seats;
+            }
+            // Another purchase may have taken one of the seats since they were read, then search again
+            if (claimAll(screening, seats).isEmpty()) {
+                return seats;
+            }
+        }
+        throw new RuntimeException("Seats of screening " + screening.getId() + " are changing too fast, retry later");
+    }
+
+    /**
+     * Frees the seat once the transaction commits, so it can't be resold before the cancellation is durable.
+     */
+    public void release(Screening screening, int seatNumber) {
+        SeatMap seatMap = getSeatMap(screening);
+        TransactionHooks.afterCommit(() -> seatMap.release(seatNumber));
+    }
+
+    /**
+     * Claims all seats or none for a hold. Unlike {@link #claimAll} the claim is not tied to a transaction,
+     * it lasts until {@link #releaseHeld} or {@link #convertHeld}. Returns the conflicting seats.
+     */
+    List<Integer> hold(Screening screening, Collection<Integer> seatNumbers) {
+        SeatMap seatMap = getSeatMap(screening);
+        List<Integer> conflicts = seatMap.tryClaimAll(seatNumbers);
+        if (conflicts.isEmpty()) {
+            rememberHeld(screening.getId(), seatNumbers);
+        }
+        return conflicts;
+    }
+
+    /**
+     * Frees held seats right away, e.g. when the hold expires.
+     */
+    void releaseHeld(Long screeningId, Collection<Integer> seatNumbers) {
+        forgetHeld(screeningId, seatNumbers);
+        SeatMap seatMap = seatMaps.get(screeningId);
+        if (seatMap != null) {
+            seatNumbers.stream()
+                    .filter(seatMap::contains)
+                    .forEach(seatMap::release);
+        }
+    }
+
+    /**
+     * Hands held seats over to the tickets being created in the current transaction. The seats stay claimed
+     * in the returned map, the one they were held in; if the transaction rolls back the caller gives them
+     * back with {@link #restoreHeld} or {@link #releaseConverted}.
+     */
+    SeatMap convertHeld(Long screeningId, Collection<Integer> seatNumbers) {
+        SeatMap seatMap = seatMaps.get(screeningId);
+        forgetHeld(screeningId, seatNumbers);
+        return seatMap;
+    }
+
+    /**
+     * Holds converted seats again after their purchase rolled back. They are still claimed in {@code seatMap};
+     * if the screening's map was rebuilt in the meantime, without them, they are claimed in the new one.
+     * Returns the seats held again, leaving out those another purchase took in the rebuilt map.
+     */
+    List<Integer> restoreHeld(Long screeningId, SeatMap seatMap, Collection<Integer> seatNumbers) {
+        List<Integer> restored = new ArrayList<>(seatNumbers);
+        rememberHeld(screeningId, restored);
+        SeatMap current = seatMaps.get(screeningId);
+        if (current != null && current != seatMap) {
+            List<Integer> lost = restored.stream()
+                    .filter(seat -> !current.contains(seat) || !current.tryClaim(seat))
+                    .toList();
+            forgetHeld(screeningId, lost);
+            restored.removeAll(lost);
+        }
+        return restored;
+    }
+
+    /**
+     * Frees converted seats after their purchase rolled back when there is no hold left to give them to.
+     */
+    void releaseConverted(SeatMap seatMap, Collection<Integer> seatNumbers) {
+        if (seatMap != null) {
+            seatNumbers.stream()
+                    .filter(seatMap::contains)
+                    .forEach(seatMap::release);
+        }
+    }
+
+    private void rememberHeld(Long screeningId, Collection<Integer> seatNumbers) {
+        heldSeats.compute(screeningId, (id, seats) -> {
+            Set<Integer> held = seats != null ? seats : ConcurrentHashMap.newKeySet();
+            held.addAll(seatNumbers);
+            return held;
+        });
+    }
+
+    private void forgetHeld(Long screeningId, Collection<Integer> seatNumbers) {
+        heldSeats.computeIfPresent(screeningId, (id, seats) -> {
+            seats.removeAll(seatNumbers);
+            return seats.isEmpty() ? null : seats;
+        });
+    }
+
+    public void evict(Long screeningId) {
+        TransactionHooks.afterCommit(() -> seatMaps.remove(screeningId));
+    }
+
+    /**
+     * Drops the bitmap immediately so the next access reloads it from the database.
+     */
+    public void invalidate(Long screeningId) {
+        seatMaps.remove(screeningId);
+    }
+}
@@ -0,0 +1,30 @@
+package org.firstlab.second.service;
+
+import java.util.List;
+
+/**
+ * Published by {@link TicketService} whenever seats of a screening are sold or given back (CANCELLED when
+ * a ticket is refunded, RELEASED when it is deleted or moved to another seat), and by {@link SeatHoldService}
+ * when seats are held or a hold ends without a purchase.
+ * Listeners bound to the transaction only see it once the change is committed.
+ */
+public record TicketEvent(Kind kind, Long screeningId, Long customerId, List<Integer> seatNumbers) {
+
+    public enum Kind {
+        SOLD(true),
+        RELEASED(false),
+        CANCELLED(false),
+        HELD(true),
+        HOLD_RELEASED(false);
+
+        private final boolean takesSeats;
+
+        Kind(boolean takesSeats) {
+            this.takesSeats = takesSeats;
+        }
+
+        public boolean takesSeats() {
+            return takesSeats;
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package org.firstlab.second.service;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.firstlab.second.config.MetricsConfig;
 import org.firstlab.second.dto.BulkPurchaseRequest;
+import org.firstlab.second.dto.HallRowDTO;
 import org.firstlab.second.dto.TicketDTO;
 import org.firstlab.second.entity.Customer;
 import org.firstlab.second.entity.Screening;
@@ -8,16 +12,22 @@ import org.firstlab.second.entity.Ticket;
 import org.firstlab.second.repository.CustomerRepository;
 import org.firstlab.second.repository.ScreeningRepository;
 import org.firstlab.second.repository.TicketRepository;
+import org.firstlab.second.repository.TicketSummary;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
+@Timed(value = MetricsConfig.SERVICE_TIMER, histogram = true)
 public class TicketService {
 
     private final TicketRepository ticketRepository;
@@ -25,17 +35,35 @@ public class TicketService {
     private final CustomerRepository customerRepository;
     private final ScreeningService screeningService;
     private final CustomerService customerService;
+    private final SeatOccupancyService seatOccupancyService;
+    private final EntityManager entityManager;
+    private final UpcomingScreeningIndex upcomingScreeningIndex;
+    private final SeatHoldService seatHoldService;
+    private final HallLayoutService hallLayoutService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public TicketService(TicketRepository ticketRepository,
                         ScreeningRepository screeningRepository,
                         CustomerRepository customerRepository,
                         ScreeningService screeningService,
-                        CustomerService customerService) {
+                        CustomerService customerService,
+                        SeatOccupancyService seatOccupancyService,
+                        EntityManager entityManager,
+                        UpcomingScreeningIndex upcomingScreeningIndex,
+                        SeatHoldService seatHoldService,
+                        HallLayoutService hallLayoutService,
+                        ApplicationEventPublisher eventPublisher) {
         this.ticketRepository = ticketRepository;
         this.screeningRepository = screeningRepository;
         this.customerRepository = customerRepository;
         this.screeningService = screeningService;
         this.customerService = customerService;
+        this.seatOccupancyService = seatOccupancyService;
+        this.entityManager = entityManager;
+        this.upcomingScreeningIndex = upcomingScreeningIndex;
+        this.seatHoldService = seatHoldService;
+        this.hallLayoutService = hallLayoutService;
+        this.eventPublisher = eventPublisher;
     }
 
     public TicketDTO createTicket(TicketDTO ticketDTO) {
@@ -45,21 +73,23 @@ public class TicketService {
         Customer customer = customerRepository.findById(ticketDTO.getCustomerId())
                 .orElseThrow(() -> new RuntimeException("Customer with ID " + ticketDTO.getCustomerId() + " not found"));
 
-        Long activeTickets = ticketRepository.countActiveTicketsByScreeningId(screening.getId());
-        if (activeTickets >= screening.getHall().getCapacity()) {
-            throw new RuntimeException("No seats available for this screening");
-        }
-
-        List<Ticket> existingTickets = ticketRepository.findByScreeningIdAndIsCancelled(screening.getId(), false);
-        boolean seatTaken = existingTickets.stream()
-                .anyMatch(t -> t.getSeatNumber().equals(ticketDTO.getSeatNumber()));
+        if (ticketDTO.getHoldId() != null) {
+            // Место уже захвачено удержанием, повторно проверять занятость не нужно
+            seatHoldService.convert(ticketDTO.getHoldId(), customer.getId(), screening.getId(),
+                    List.of(ticketDTO.getSeatNumber()));
+        } else {
+            SeatMap seatMap = seatOccupancyService.getSeatMap(screening);
+            if (seatMap.freeSeats() == 0) {
+                throw new RuntimeException("No seats available for this screening");
+            }
 
-        if (seatTaken) {
-            throw new RuntimeException("Seat number " + ticketDTO.getSeatNumber() + " is already taken");
-        }
+            if (!seatMap.contains(ticketDTO.getSeatNumber())) {
+                throw new RuntimeException("Seat number " + ticketDTO.getSeatNumber() + " is out of bounds");
+            }
 
-        if (ticketDTO.getSeatNumber() > screening.getHall().getCapacity()) {
-            throw new RuntimeException("Seat number " + ticketDTO.getSeatNumber() + " is out of bounds");
+            if (!seatOccupancyService.claim(screening, ticketDTO.getSeatNumber())) {
+                throw new RuntimeException("Seat number " + ticketDTO.getSeatNumber() + " is already taken");
+            }
         }
 
         Ticket ticket = new Ticket();
@@ -69,19 +99,35 @@ public class TicketService {
         ticket.setPurchaseTime(LocalDateTime.now());
         ticket.setIsCancelled(false);
 
+        if (screeningRepository.takeSeats(screening.getId(), 1) == 0) {
+            throw new RuntimeException("No seats available for this screening");
+        }
         screening.setAvailableSeats(screening.getAvailableSeats() - 1);
-        screeningRepository.save(screening);
+        upcomingScreeningIndex.adjustAvailableSeats(screening.getId(), -1);
 
-        Ticket savedTicket = ticketRepository.save(ticket);
+        Ticket savedTicket = saveTicket(ticket);
+        publish(TicketEvent.Kind.SOLD, savedTicket, List.of(savedTicket.getSeatNumber()));
         return convertToDTO(savedTicket, true);
     }
 
-    public List<TicketDTO> getAllTickets() {
-        return ticketRepository.findAll().stream()
+    /**
+     * With details the screening (with movie and hall) and customer are fetched and nested,
+     * without them the rows come from the {@link TicketSummary} projection.
+     */
+    public List<TicketDTO> getAllTickets(Long after, int limit, boolean details) {
+        if (!details) {
+            return convertSummaries(ticketRepository.findSummariesByIdGreaterThan(after, Limit.of(limit)));
+        }
+        return ticketRepository.findByIdGreaterThanOrderByIdAsc(after, Limit.of(limit)).stream()
                 .map(t -> convertToDTO(t, true))
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
+    public void streamAllTickets(Consumer<TicketDTO> consumer) {
+        EntityStreams.forEach(ticketRepository.streamAll(), entityManager, t -> convertToDTO(t, true), consumer);
+    }
+
     public TicketDTO getTicketById(Long id) {
         Ticket ticket = ticketRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Ticket with ID " + id + " not found"));
@@ -94,20 +140,28 @@ public class TicketService {
 
         if (ticketDTO.getSeatNumber() != null && !ticketDTO.getSeatNumber().equals(ticket.getSeatNumber())) {
             // Проверка: новое место не занято
-            List<Ticket> existingTickets = ticketRepository.findByScreeningIdAndIsCancelled(
-                    ticket.getScreening().getId(), false);
-            boolean seatTaken = existingTickets.stream()
-                    .filter(t -> !t.getId().equals(id))
-                    .anyMatch(t -> t.getSeatNumber().equals(ticketDTO.getSeatNumber()));
+            SeatMap seatMap = seatOccupancyService.getSeatMap(ticket.getScreening());
+            if (!seatMap.contains(ticketDTO.getSeatNumber())) {
+                throw new RuntimeException("Seat number " + ticketDTO.getSeatNumber() + " is out of bounds");
+            }
+
+            boolean seatTaken = ticket.getIsCancelled()
+                    ? !seatMap.isFree(ticketDTO.getSeatNumber())
+                    : !seatOccupancyService.claim(ticket.getScreening(), ticketDTO.getSeatNumber());
 
             if (seatTaken) {
                 throw new RuntimeException("Ticket with seat number " + ticketDTO.getSeatNumber() + " already exists");
             }
 
+            if (!ticket.getIsCancelled()) {
+                seatOccupancyService.release(ticket.getScreening(), ticket.getSeatNumber());
+                publish(TicketEvent.Kind.RELEASED, ticket, List.of(ticket.getSeatNumber()));
+                publish(TicketEvent.Kind.SOLD, ticket, List.of(ticketDTO.getSeatNumber()));
+            }
             ticket.setSeatNumber(ticketDTO.getSeatNumber());
         }
 
-        Ticket updatedTicket = ticketRepository.save(ticket);
+        Ticket updatedTicket = saveTicket(ticket);
         return convertToDTO(updatedTicket, true);
     }
 
@@ -119,9 +173,13 @@ public class TicketService {
         Ticket ticket = ticketRepository.findById(id).get();
         Screening screening = ticket.getScreening();
 
-        screening.setAvailableSeats(screening.getAvailableSeats() + 1);
-        screeningRepository.save(screening);
-
+        // Место отменённого билета уже вернули при отмене
+        if (!ticket.getIsCancelled()) {
+            screeningRepository.returnSeats(screening.getId(), 1);
+            upcomingScreeningIndex.adjustAvailableSeats(screening.getId(), 1);
+            seatOccupancyService.release(screening, ticket.getSeatNumber());
+            publish(TicketEvent.Kind.RELEASED, ticket, List.of(ticket.getSeatNumber()));
+        }
         ticketRepository.deleteById(id);
     }
 
@@ -141,26 +199,38 @@ public class TicketService {
 
         // Увеличиваем количество доступных мест
         Screening screening = ticket.getScreening();
+        screeningRepository.returnSeats(screening.getId(), 1);
         screening.setAvailableSeats(screening.getAvailableSeats() + 1);
-        screeningRepository.save(screening);
+        upcomingScreeningIndex.adjustAvailableSeats(screening.getId(), 1);
+        seatOccupancyService.release(screening, ticket.getSeatNumber());
+        publish(TicketEvent.Kind.CANCELLED, ticket, List.of(ticket.getSeatNumber()));
 
         Ticket cancelledTicket = ticketRepository.save(ticket);
         return convertToDTO(cancelledTicket, true);
     }
 
-    public List<TicketDTO> getTicketsByScreening(Long screeningId) {
+    public List<TicketDTO> getTicketsByScreening(Long screeningId, boolean details) {
+        if (!details) {
+            return convertSummaries(ticketRepository.findSummariesByScreeningId(screeningId));
+        }
         return ticketRepository.findByScreeningId(screeningId).stream()
                 .map(t -> convertToDTO(t, true))
                 .collect(Collectors.toList());
     }
 
-    public List<TicketDTO> getTicketsByCustomer(Long customerId) {
+    public List<TicketDTO> getTicketsByCustomer(Long customerId, boolean details) {
+        if (!details) {
+            return convertSummaries(ticketRepository.findSummariesByCustomerId(customerId));
+        }
         return ticketRepository.findByCustomerId(customerId).stream()
                 .map(t -> convertToDTO(t, true))
                 .collect(Collectors.toList());
     }
 
-    public List<TicketDTO> getActiveTicketsByScreening(Long screeningId) {
+    public List<TicketDTO> getActiveTicketsByScreening(Long screeningId, boolean details) {
+        if (!details) {
+            return convertSummaries(ticketRepository.findActiveSummariesByScreeningId(screeningId));
+        }
         return ticketRepository.findByScreeningIdAndIsCancelled(screeningId, false).stream()
                 .map(t -> convertToDTO(t, true))
                 .collect(Collectors.toList());
@@ -179,52 +249,44 @@ public class TicketService {
         Customer customer = customerRepository.findById(request.getCustomerId())
                 .orElseThrow(() -> new RuntimeException("Customer with ID " + request.getCustomerId() + " not found"));
 
-        // Check if there are enough seats available
-        Long activeTickets = ticketRepository.countActiveTicketsByScreeningId(screening.getId());
-        int requestedSeats = request.getSeatNumbers().size();
-        long availableSeats = screening.getHall().getCapacity() - activeTickets;
-
-        if (requestedSeats > availableSeats) {
-            throw new RuntimeException("Not enough seats available. Requested: " + requestedSeats +
-                    ", Available: " + availableSeats);
-        }
+        List<Integer> seatNumbers;
 
-        // Get all currently taken seats for this screening
-        List<Ticket> existingTickets = ticketRepository.findByScreeningIdAndIsCancelled(screening.getId(), false);
-        List<Integer> takenSeats = existingTickets.stream()
-                .map(Ticket::getSeatNumber)
-                .collect(Collectors.toList());
-
-        // Check if any requested seat is already taken
-        List<Integer> conflictingSeats = request.getSeatNumbers().stream()
-                .filter(takenSeats::contains)
-                .collect(Collectors.toList());
+        if (request.getSeatCount() != null) {
+            if (request.getHoldId() != null) {
+                throw new RuntimeException("A hold can only be converted with its seat numbers");
+            }
+            seatNumbers = claimBestAvailable(screening, request.getSeatCount(), request.getSection());
+        } else {
+            seatNumbers = request.getSeatNumbers();
+
+            // Check for duplicate seat numbers in request
+            long uniqueSeats = seatNumbers.stream().distinct().count();
+            if (uniqueSeats != seatNumbers.size()) {
+                throw new RuntimeException("Duplicate seat numbers in request are not allowed");
+            }
 
-        if (!conflictingSeats.isEmpty()) {
-            throw new RuntimeException("The following seats are already taken: " + conflictingSeats);
+            if (request.getHoldId() != null) {
+                // Held seats are already claimed and within the hall, they only have to belong to the hold
+                seatHoldService.convert(request.getHoldId(), customer.getId(), screening.getId(), seatNumbers);
+            } else {
+                claimRequestedSeats(screening, seatNumbers);
+            }
         }
 
-        // Check if any seat number exceeds hall capacity
-        Integer maxRequestedSeat = request.getSeatNumbers().stream()
-                .max(Integer::compareTo)
-                .orElse(0);
-
-        if (maxRequestedSeat > screening.getHall().getCapacity()) {
-            throw new RuntimeException("Seat number " + maxRequestedSeat +
-                    " exceeds hall capacity of " + screening.getHall().getCapacity());
-        }
+        int requestedSeats = seatNumbers.size();
 
-        // Check for duplicate seat numbers in request
-        long uniqueSeats = request.getSeatNumbers().stream().distinct().count();
-        if (uniqueSeats != request.getSeatNumbers().size()) {
-            throw new RuntimeException("Duplicate seat numbers in request are not allowed");
+        // Update available seats, the counter is only decremented if all requested seats are still left
+        if (screeningRepository.takeSeats(screening.getId(), requestedSeats) == 0) {
+            throw new RuntimeException("Not enough seats available. Requested: " + requestedSeats);
         }
+        screening.setAvailableSeats(screening.getAvailableSeats() - requestedSeats);
+        upcomingScreeningIndex.adjustAvailableSeats(screening.getId(), -requestedSeats);
 
         // All checks passed - create all tickets in one transaction
         List<Ticket> tickets = new ArrayList<>();
         LocalDateTime purchaseTime = LocalDateTime.now();
 
-        for (Integer seatNumber : request.getSeatNumbers()) {
+        for (Integer seatNumber : seatNumbers) {
             Ticket ticket = new Ticket();
             ticket.setScreening(screening);
             ticket.setCustomer(customer);
@@ -235,11 +297,15 @@ public class TicketService {
         }
 
         // Save all tickets
-        List<Ticket> savedTickets = ticketRepository.saveAll(tickets);
-
-        // Update available seats
-        screening.setAvailableSeats(screening.getAvailableSeats() - requestedSeats);
-        screeningRepository.save(screening);
+        List<Ticket> savedTickets;
+        try {
+            savedTickets = ticketRepository.saveAllAndFlush(tickets);
+        } catch (DataIntegrityViolationException ex) {
+            seatOccupancyService.invalidate(screening.getId());
+            throw new RuntimeException("Some of the requested seats are already taken");
+        }
+        eventPublisher.publishEvent(new TicketEvent(TicketEvent.Kind.SOLD, screening.getId(), customer.getId(),
+                List.copyOf(seatNumbers)));
 
         // Convert to DTOs and return
         return savedTickets.stream()
@@ -247,6 +313,72 @@ public class TicketService {
                 .collect(Collectors.toList());
     }
 
+    private void claimRequestedSeats(Screening screening, List<Integer> seatNumbers) {
+        // Check if there are enough seats available
+        SeatMap seatMap = seatOccupancyService.getSeatMap(screening);
+        int availableSeats = seatMap.freeSeats();
+
+        if (seatNumbers.size() > availableSeats) {
+            throw new RuntimeException("Not enough seats available. Requested: " + seatNumbers.size() +
+                    ", Available: " + availableSeats);
+        }
+
+        // Check if any seat number exceeds hall capacity
+        Integer maxRequestedSeat = seatNumbers.stream()
+                .max(Integer::compareTo)
+                .orElse(0);
+
+        if (maxRequestedSeat > screening.getHall().getCapacity()) {
+            throw new RuntimeException("Seat number " + maxRequestedSeat +
+                    " exceeds hall capacity of " + screening.getHall().getCapacity());
+        }
+
+        // Claim all requested seats at once, none are claimed if any of them is already taken
+        List<Integer> conflictingSeats = seatOccupancyService.claimAll(screening, seatNumbers);
+
+        if (!conflictingSeats.isEmpty()) {
+            throw new RuntimeException("The following seats are already taken: " + conflictingSeats);
+        }
+    }
+
+    /**
+     * Picks and claims the best adjacent seats from the hall's row layout.
+     */
+    private List<Integer> claimBestAvailable(Screening screening, int seatCount, String section) {
+        Long hallId = screening.getHall().getId();
+        List<HallRowDTO> rows = hallLayoutService.getLayout(hallId).getRows();
+        if (rows.isEmpty()) {
+            throw new RuntimeException("Hall " + hallId + " has no row layout, seats must be chosen by number");
+        }
+        List<Integer> seatNumbers = seatOccupancyService.claimBestAvailable(screening, rows, seatCount, section);
+        if (seatNumbers.isEmpty()) {
+            throw new RuntimeException("No " + seatCount + " adjacent seats available" +
+                    (section != null ? " in section " + section : ""));
+        }
+        return seatNumbers;
+    }
+
+    /**
+     * Inserts the ticket right away so a clash with the unique index on active seats is reported
+     * as a taken seat. A clash means the in-memory seat map is stale, so it is reloaded on next access.
+     */
+    private Ticket saveTicket(Ticket ticket) {
+        try {
+            return ticketRepository.saveAndFlush(ticket);
+        } catch (DataIntegrityViolationException ex) {
+            seatOccupancyService.invalidate(ticket.getScreening().getId());
+            throw new RuntimeException("Seat number " + ticket.getSeatNumber() + " is already taken");
+        }
+    }
+
+    /**
+     * Listeners bound to the transaction get the event after commit, see {@link SeatEventBroadcaster}.
+     */
+    private void publish(TicketEvent.Kind kind, Ticket ticket, List<Integer> seatNumbers) {
+        eventPublisher.publishEvent(new TicketEvent(kind, ticket.getScreening().getId(),
+                ticket.getCustomer().getId(), seatNumbers));
+    }
+
     private TicketDTO convertToDTO(Ticket ticket, boolean includeDetails) {
         TicketDTO dto = new TicketDTO();
         dto.setId(ticket.getId());
@@ -257,11 +389,27 @@ public class TicketService {
         dto.setIsCancelled(ticket.getIsCancelled());
 
         if (includeDetails) {
-            dto.setScreening(screeningService.getScreeningById(ticket.getScreening().getId()));
-            dto.setCustomer(customerService.getCustomerById(ticket.getCustomer().getId()));
+            dto.setScreening(screeningService.convertToDTO(ticket.getScreening(), true));
+            dto.setCustomer(customerService.convertToDTO(ticket.getCustomer()));
         }
 
         return dto;
     }
+
+    private List<TicketDTO> convertSummaries(List<TicketSummary> summaries) {
+        return summaries.stream()
+                .map(summary -> new TicketDTO(
+                        summary.id(),
+                        summary.screeningId(),
+                        summary.customerId(),
+                        summary.seatNumber(),
+                        summary.purchaseTime(),
+                        summary.isCancelled(),
+                        null,
+                        null,
+                        null
+                ))
+                .collect(Collectors.toList());
+    }
 }
 
@@ -0,0 +1,164 @@
+package org.firstlab.second.service;
+
+import org.firstlab.second.dto.HallDTO;
+import org.firstlab.second.dto.MovieDTO;
+import org.firstlab.second.dto.ScreeningDTO;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Time-ordered copy of all future screenings with their movie and hall details,
+ * so the upcoming schedule is a range scan instead of a query.
+ * <p>
+ * Entries are immutable snapshots: every change replaces the entry with a new copy.
+ * All changes coming from a transaction are applied after it commits. The seat counter of an entry is kept
+ * up to date only by {@link #adjustAvailableSeats}, a re-put screening keeps the counter it already has.
+ */
+@Service
+public class UpcomingScreeningIndex {
+
+    private final ConcurrentSkipListMap<ScheduleKey, ScreeningDTO> schedule = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<Long, ScheduleKey> keys = new ConcurrentHashMap<>();
+    // Удалённые до загрузки: запрос при старте мог прочитать их раньше удаления
+    private final Set<Long> removedBeforeLoad = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Fills the index with the screenings loaded at startup. Screenings indexed in the meantime are kept,
+     * screenings removed in the meantime are skipped.
+     */
+    void load(Collection<ScreeningDTO> screenings) {
+        for (ScreeningDTO screening : screenings) {
+            Long id = screening.getId();
+            if (keys.containsKey(id) || removedBeforeLoad.contains(id)) {
+                continue;
+            }
+            doPut(copyOf(screening));
+            // Удаление могло прийти между проверкой и вставкой
+            if (removedBeforeLoad.contains(id)) {
+                detach(id);
+            }
+        }
+        ready = true;
+        removedBeforeLoad.clear();
+    }
+
+    public List<ScreeningDTO> getUpcoming(LocalDateTime now) {
+        ScheduleKey cutoff = new ScheduleKey(now, Long.MAX_VALUE);
+        NavigableMap<ScheduleKey, ScreeningDTO> started = schedule.headMap(cutoff, true);
+        started.keySet().forEach(key -> keys.remove(key.screeningId(), key));
+        started.clear();
+        return new ArrayList<>(schedule.tailMap(cutoff, false).values());
+    }
+
+    void put(ScreeningDTO screening) {
+        ScreeningDTO snapshot = copyOf(screening);
+        TransactionHooks.afterCommit(() -> doPut(snapshot));
+    }
+
+    void putAll(Collection<ScreeningDTO> screenings) {
+        List<ScreeningDTO> snapshots = screenings.stream().map(UpcomingScreeningIndex::copyOf).toList();
+        TransactionHooks.afterCommit(() -> snapshots.forEach(this::doPut));
+    }
+
+    void remove(Long screeningId) {
+        TransactionHooks.afterCommit(() -> {
+            if (!ready) {
+                removedBeforeLoad.add(screeningId);
+            }
+            detach(screeningId);
+        });
+    }
+
+    void adjustAvailableSeats(Long screeningId, int delta) {
+        TransactionHooks.afterCommit(() -> {
+            ScheduleKey key = keys.get(screeningId);
+            if (key != null) {
+                schedule.computeIfPresent(key, (k, screening) -> {
+                    ScreeningDTO updated = copyOf(screening);
+                    updated.setAvailableSeats(screening.getAvailableSeats() + delta);
+                    return updated;
+                });
+            }
+        });
+    }
+
+    void refreshMovie(MovieDTO movie) {
+        TransactionHooks.afterCommit(() -> schedule.replaceAll((key, screening) -> {
+            if (!screening.getMovieId().equals(movie.getId())) {
+                return screening;
+            }
+            ScreeningDTO updated = copyOf(screening);
+            updated.setMovie(movie);
+            return updated;
+        }));
+    }
+
+    void refreshHall(HallDTO hall) {
+        TransactionHooks.afterCommit(() -> schedule.replaceAll((key, screening) -> {
+            if (!screening.getHallId().equals(hall.getId())) {
+                return screening;
+            }
+            ScreeningDTO updated = copyOf(screening);
+            updated.setHall(hall);
+            return updated;
+        }));
+    }
+
+    private void doPut(ScreeningDTO screening) {
+        ScreeningDTO previous = detach(screening.getId());
+        if (previous != null) {
+            // Снимок сделан в транзакции: покупки, закоммиченные после него, уже учтены в записи
+            screening.setAvailableSeats(previous.getAvailableSeats());
+        }
+        if (screening.getStartTime().isAfter(LocalDateTime.now())) {
+            ScheduleKey key = new ScheduleKey(screening.getStartTime(), screening.getId());
+            keys.put(screening.getId(), key);
+            schedule.put(key, screening);
+        }
+    }
+
+    private ScreeningDTO detach(Long screeningId) {
+        ScheduleKey key = keys.remove(screeningId);
+        return key != null ? schedule.remove(key) : null;
+    }
+
+    private static ScreeningDTO copyOf(ScreeningDTO screening) {
+        return new ScreeningDTO(
+                screening.getId(),
+                screening.getMovieId(),
+                screening.getHallId(),
+                screening.getStartTime(),
+                screening.getPrice(),
+                screening.getAvailableSeats(),
+                screening.getMovie(),
+                screening.getHall()
+        );
+    }
+
+    private record ScheduleKey(LocalDateTime startTime, long screeningId) implements Comparable<ScheduleKey> {
+
+        private static final Comparator<ScheduleKey> ORDER = Comparator
+                .comparing(ScheduleKey::startTime)
+                .thenComparingLong(ScheduleKey::screeningId);
+
+        @Override
+        public int compareTo(ScheduleKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+-- Runs only on a database baselined at V0, before V1 creates ux_tickets_active_seat. Before the index existed
+-- a seat could be sold twice, and CREATE UNIQUE INDEX would fail on such rows. Of the active tickets sharing
+-- (screening_id, seat_number) the earliest purchase is kept, the others are cancelled as a refund would
+-- cancel them: the seat is returned to screenings.available_seats. Every cancelled ticket is recorded in
+-- duplicate_seat_cancellations and reported as a notice in the migration log.
+DO $$
+DECLARE
+    duplicate record;
+    cancelled integer := 0;
+BEGIN
+    IF to_regclass('tickets') IS NULL THEN
+        RETURN;
+    END IF;
+
+    CREATE TABLE IF NOT EXISTS duplicate_seat_cancellations (
+        ticket_id      bigint       NOT NULL PRIMARY KEY,
+        kept_ticket_id bigint       NOT NULL,
+        screening_id   bigint       NOT NULL,
+        seat_number    integer      NOT NULL,
+        customer_id    bigint       NOT NULL,
+        cancelled_at   timestamp(6) NOT NULL
+    );
+
+    FOR duplicate IN
+        SELECT id, kept_id, screening_id, seat_number, customer_id
+        FROM (SELECT t.id, t.screening_id, t.seat_number, t.customer_id,
+                     first_value(t.id) OVER seat AS kept_id,
+                     row_number() OVER seat AS position
+              FROM tickets t
+              WHERE t.is_cancelled = false
+              WINDOW seat AS (PARTITION BY t.screening_id, t.seat_number ORDER BY t.purchase_time, t.id)) active
+        WHERE position > 1
+        ORDER BY screening_id, seat_number, id
+    LOOP
+        UPDATE tickets SET is_cancelled = true WHERE id = duplicate.id;
+        UPDATE screenings SET available_seats = available_seats + 1 WHERE id = duplicate.screening_id;
+        INSERT INTO duplicate_seat_cancellations
+        VALUES (duplicate.id, duplicate.kept_id, duplicate.screening_id, duplicate.seat_number,
+                duplicate.customer_id, now());
+        RAISE NOTICE 'Cancelled ticket % of customer %: screening % seat % is kept by ticket %',
+            duplicate.id, duplicate.customer_id, duplicate.screening_id, duplicate.seat_number, duplicate.kept_id;
+        cancelled := cancelled + 1;
+    END LOOP;
+
+    RAISE NOTICE 'Cancelled % duplicate active ticket(s)', cancelled;
+END $$;
@@ -0,0 +1,59 @@
+-- Schema as generated by Hibernate (ddl-auto=update) before migrations were introduced.
+-- Existing databases are baselined at this version and skip it (spring.flyway.baseline-on-migrate).
+
+CREATE TABLE IF NOT EXISTS movies (
+    id               bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title            varchar(255)  NOT NULL,
+    description      varchar(1000),
+    duration_minutes integer       NOT NULL,
+    genre            varchar(255),
+    director         varchar(255),
+    movie_year       integer       NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS halls (
+    id       bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name     varchar(255) NOT NULL UNIQUE,
+    capacity integer      NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS customers (
+    id         bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    first_name varchar(255) NOT NULL,
+    last_name  varchar(255) NOT NULL,
+    email      varchar(255) NOT NULL UNIQUE,
+    phone      varchar(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS screenings (
+    id              bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    movie_id        bigint       NOT NULL REFERENCES movies (id),
+    hall_id         bigint       NOT NULL REFERENCES halls (id),
+    start_time      timestamp(6) NOT NULL,
+    price           float(53)    NOT NULL,
+    available_seats integer      NOT NULL
+);
+
+CREATE SEQUENCE IF NOT EXISTS ticket_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS tickets (
+    id            bigint       NOT NULL PRIMARY KEY,
+    screening_id  bigint       NOT NULL REFERENCES screenings (id),
+    customer_id   bigint       NOT NULL REFERENCES customers (id),
+    seat_number   integer      NOT NULL,
+    purchase_time timestamp(6) NOT NULL,
+    is_cancelled  boolean      NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id            varchar(255) NOT NULL PRIMARY KEY,
+    fingerprint   varchar(255) NOT NULL,
+    status        integer,
+    response_body bytea,
+    created_at    timestamp(6) NOT NULL
+);
+
+-- One active ticket per seat and screening, backs the in-memory seat claims
+CREATE UNIQUE INDEX IF NOT EXISTS ux_tickets_active_seat
+    ON tickets (screening_id, seat_number)
+    WHERE is_cancelled = false;
@@ -0,0 +1,33 @@
+-- Indexes behind the repository finders. Built CONCURRENTLY so that running the migration against
+-- a live database does not block ticket sales; see V2__finder_indexes.sql.conf.
+
+-- findByScreeningId, findByScreeningIdAndIsCancelled and the ticket summaries of a screening.
+-- Also the index of the screening_id foreign key. INCLUDE lets summaries be read with an index-only scan.
+-- Active seats and their count are served by ux_tickets_active_seat (V1).
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_tickets_screening
+    ON tickets (screening_id, is_cancelled)
+    INCLUDE (id, customer_id, seat_number, purchase_time);
+
+-- findByCustomerId and the customer's summaries, ordered by purchase time; index of the customer_id foreign key
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_tickets_customer
+    ON tickets (customer_id, purchase_time)
+    INCLUDE (id, screening_id, seat_number, is_cancelled);
+
+-- findByStartTimeBetween, findUpcomingScreenings
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_screenings_start_time
+    ON screenings (start_time);
+
+-- findByMovieId, findByHallId; indexes of the movie_id and hall_id foreign keys
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_screenings_movie
+    ON screenings (movie_id, start_time);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_screenings_hall
+    ON screenings (hall_id, start_time);
+
+-- findByGenre
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_movies_genre
+    ON movies (genre);
+
+-- Purge of expired keys
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_idempotency_keys_created_at
+    ON idempotency_keys (created_at);
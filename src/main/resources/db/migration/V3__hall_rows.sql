@@ -0,0 +1,12 @@
+-- Row layout of a hall. Seats keep their flat numbering: the rows, taken in row_index order,
+-- cover seats 1..capacity one after another.
+CREATE TABLE hall_rows (
+    id        bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    hall_id   bigint       NOT NULL REFERENCES halls (id),
+    row_index integer      NOT NULL,
+    label     varchar(255) NOT NULL,
+    section   varchar(255),
+    seats     integer      NOT NULL,
+    quality   float(53)    NOT NULL,
+    CONSTRAINT ux_hall_rows_hall_row UNIQUE (hall_id, row_index)
+);
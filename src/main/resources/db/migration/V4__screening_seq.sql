@@ -0,0 +1,8 @@
+-- Screenings take their ids from a pooled sequence like tickets. With an identity column Hibernate has to
+-- insert every screening on its own to read its id back, so a generated schedule could not be batched.
+CREATE SEQUENCE screening_seq INCREMENT BY 50;
+
+-- Hibernate hands out the 50 ids up to each value it reads, the first value must leave room above existing ids
+SELECT setval('screening_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM screenings), false);
+
+ALTER TABLE screenings ALTER COLUMN id DROP IDENTITY IF EXISTS;
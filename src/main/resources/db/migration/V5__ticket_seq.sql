@@ -0,0 +1,9 @@
+-- A database created by ddl-auto=update before migrations existed still has an identity column on tickets.id.
+-- V1 runs on such a database (it is baselined at V0) and creates ticket_seq starting at 1, so the sequence is
+-- moved above the existing ids here. Hibernate hands out the 50 ids up to each value it reads; the first value
+-- must leave room above existing ids and above a block an instance running on the old schema may still use.
+SELECT setval('ticket_seq', GREATEST(
+        (SELECT COALESCE(MAX(id), 0) FROM tickets),
+        (SELECT last_value FROM ticket_seq)) + 50, false);
+
+ALTER TABLE tickets ALTER COLUMN id DROP IDENTITY IF EXISTS;
@@ -0,0 +1,7 @@
+-- A key without a response is held only while its claim is fresh: a claim older than
+-- cinema.idempotency.claim-lease (e.g. left by a crashed instance) can be taken over by a retry.
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS claimed_at timestamp(6);
+
+UPDATE idempotency_keys SET claimed_at = created_at WHERE claimed_at IS NULL;
+
+ALTER TABLE idempotency_keys ALTER COLUMN claimed_at SET NOT NULL;
@@ -0,0 +1,191 @@
+package org.firstlab.second.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.firstlab.second.config.QueryCountInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs every filtering finder against PostgreSQL with the Flyway schema, captures the SQL Hibernate sent
+ * and checks with EXPLAIN that the filtered table is reached through an index condition. Sequential scans
+ * are disabled while planning, so the result doesn't depend on table sizes: a plan without an index condition
+ * means no index can serve the query. findByTitleContainingIgnoreCase is left out, a '%term%' pattern can't
+ * use a btree index and searches go through MovieSearchIndex.
+ */
+@SpringBootTest(properties = {"server.port=0", "spring.jpa.show-sql=false"})
+@Testcontainers(disabledWithoutDocker = true)
+class FinderIndexUsageTest {
+
+    // GENERIC_PLAN (PostgreSQL 16) plans statements with $n parameters without binding values
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private ScreeningRepository screeningRepository;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private HallRepository hallRepository;
+
+    @Autowired
+    private HallRowRepository hallRowRepository;
+
+    @Autowired
+    private RecordingInspector inspector;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void ticketFindersUseIndexes() {
+        assertIndexed("tickets", () -> ticketRepository.findByScreeningId(1L));
+        assertIndexed("tickets", () -> ticketRepository.findByCustomerId(1L));
+        assertIndexed("tickets", () -> ticketRepository.findByScreeningIdAndIsCancelled(1L, false));
+        assertIndexed("tickets", () -> ticketRepository.findSummariesByIdGreaterThan(0L, Limit.of(100)));
+        assertIndexed("tickets", () -> ticketRepository.findSummariesByScreeningId(1L));
+        assertIndexed("tickets", () -> ticketRepository.findSummariesByCustomerId(1L));
+        assertIndexed("tickets", () -> ticketRepository.findActiveSummariesByScreeningId(1L));
+        assertIndexed("tickets", () -> ticketRepository.countActiveTicketsByScreeningId(1L));
+        assertIndexed("tickets", () -> ticketRepository.findActiveSeatNumbersByScreeningId(1L));
+        assertIndexed("tickets", () -> ticketRepository.findPurchaseHistory(1L, 0L,
+                LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(2026, 1, 1, 0, 0), Limit.of(100)));
+        assertIndexed("tickets", () -> ticketRepository.findActiveSeatsByCustomerId(1L));
+    }
+
+    @Test
+    void screeningFindersUseIndexes() {
+        LocalDateTime now = LocalDateTime.now();
+        assertIndexed("screenings", () -> screeningRepository.findByMovieId(1L));
+        assertIndexed("screenings", () -> screeningRepository.findByHallId(1L));
+        assertIndexed("screenings", () -> screeningRepository.findByStartTimeBetween(now, now.plusDays(1)));
+        assertIndexed("screenings", () -> screeningRepository.findUpcomingScreenings(now));
+        assertIndexed("screenings", () -> screeningRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(100)));
+        assertIndexed("screenings", () -> screeningRepository.findSummaryById(1L));
+    }
+
+    @Test
+    void referenceDataFindersUseIndexes() {
+        assertIndexed("movies", () -> movieRepository.findByGenre("Drama"));
+        assertIndexed("customers", () -> customerRepository.findByEmail("anna@example.com"));
+        assertIndexed("halls", () -> hallRepository.findByName("Main"));
+        assertIndexed("hall_rows", () -> hallRowRepository.findByHallIdOrderByRowIndexAsc(1L));
+    }
+
+    private void assertIndexed(String table, Runnable finder) {
+        inspector.statements.clear();
+        inspector.recordingThread = Thread.currentThread();
+        try {
+            finder.run();
+        } finally {
+            inspector.recordingThread = null;
+        }
+        assertFalse(inspector.statements.isEmpty(), "no statement was captured");
+
+        for (String sql : inspector.statements) {
+            List<JsonNode> scans = new ArrayList<>();
+            collectScans(explain(sql), table, scans);
+            assertFalse(scans.isEmpty(), () -> table + " is not scanned by:\n" + sql);
+            for (JsonNode scan : scans) {
+                assertTrue(scan.has("Index Cond") || scan.has("Recheck Cond"),
+                        () -> table + " is scanned without an index condition by:\n" + sql + "\n" + scan.toPrettyString());
+            }
+        }
+    }
+
+    private JsonNode explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<JsonNode>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET enable_seqscan = off");
+                try (ResultSet plan = statement.executeQuery("EXPLAIN (GENERIC_PLAN, FORMAT JSON) " + numbered(sql))) {
+                    plan.next();
+                    return objectMapper.readTree(plan.getString(1)).get(0).get("Plan");
+                } catch (JsonProcessingException ex) {
+                    throw new IllegalStateException(ex);
+                } finally {
+                    statement.execute("RESET enable_seqscan");
+                }
+            }
+        });
+    }
+
+    private static void collectScans(JsonNode node, String table, List<JsonNode> scans) {
+        if (table.equals(node.path("Relation Name").asText())) {
+            scans.add(node);
+        }
+        node.path("Plans").forEach(child -> collectScans(child, table, scans));
+    }
+
+    // JDBC placeholders to the $n form EXPLAIN understands
+    private static String numbered(String sql) {
+        StringBuilder result = new StringBuilder(sql.length() + 16);
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                result.append('$').append(++parameter);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    @TestConfiguration
+    static class RecordingConfig {
+
+        @Bean
+        @Primary
+        RecordingInspector recordingInspector() {
+            return new RecordingInspector();
+        }
+    }
+
+    static class RecordingInspector extends QueryCountInspector {
+
+        // Only statements of the test thread, not of scheduled jobs running meanwhile
+        private final List<String> statements = new CopyOnWriteArrayList<>();
+        private volatile Thread recordingThread;
+
+        @Override
+        public String inspect(String sql) {
+            if (Thread.currentThread() == recordingThread) {
+                statements.add(sql);
+            }
+            return super.inspect(sql);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.firstlab.second.service;
+
+import jakarta.validation.Validation;
+import org.firstlab.second.dto.ImportErrorDTO;
+import org.firstlab.second.dto.ImportReportDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Parsing, validation, unique-key checks and the row-by-row fallback of the import, with the database
+ * mocked out: a mocked transaction template runs nothing, so a call to it stands for a written batch or row.
+ */
+class CsvImportServiceTest {
+
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private MovieService movieService;
+    private CsvImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        namedJdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        movieService = mock(MovieService.class);
+        importService = new CsvImportService(mock(JdbcTemplate.class), namedJdbcTemplate, transactionTemplate,
+                Validation.buildDefaultValidatorFactory().getValidator(), movieService, 10, 100);
+    }
+
+    @Test
+    void dropsDuplicatesOfTheTableAndOfTheFile() {
+        when(namedJdbcTemplate.queryForList(anyString(), anyMap(), eq(String.class)))
+                .thenReturn(List.of("taken@example.com"));
+
+        ImportReportDTO report = importCsv("customers", """
+                first_name,last_name,email,phone
+                Anna,Ivanova,anna@example.com,+70000000000
+                Boris,Petrov,taken@example.com,+70000000001
+                Anna,Smirnova,anna@example.com,+70000000002
+                Vera,Orlova,not-an-email,+70000000003
+                """);
+
+        assertEquals(4, report.getRowsRead());
+        assertEquals(1, report.getImported());
+        assertEquals(3, report.getFailed());
+        assertTrue(report.isComplete());
+        assertEquals(List.of(5, 3, 4), report.getErrors().stream().map(ImportErrorDTO::getLine).toList());
+        assertTrue(report.getErrors().get(0).getMessage().startsWith("email: "));
+        assertEquals("email taken@example.com already exists", report.getErrors().get(1).getMessage());
+        assertEquals("email anna@example.com appears more than once in the file", report.getErrors().get(2).getMessage());
+        verify(transactionTemplate, times(1)).executeWithoutResult(any());
+    }
+
+    @Test
+    void retriesARejectedBatchRowByRow() {
+        doThrow(new DataIntegrityViolationException("batch rejected"))
+                .doNothing()
+                .doThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint"))
+                .doNothing()
+                .when(transactionTemplate).executeWithoutResult(any());
+
+        ImportReportDTO report = importCsv("halls", """
+                name,capacity
+                Red,100
+                Blue,80
+                Green,60
+                """);
+
+        assertEquals(2, report.getImported());
+        assertEquals(1, report.getFailed());
+        assertEquals(List.of(new ImportErrorDTO(3, "duplicate key value violates unique constraint")), report.getErrors());
+        verify(transactionTemplate, times(4)).executeWithoutResult(any());
+    }
+
+    @Test
+    void writesRowsReadBeforeAMalformedRecord() {
+        when(movieService.getLastMovieId()).thenReturn(41L);
+
+        ImportReportDTO report = importCsv("movies", """
+                title,description,durationMinutes,genre,director,year
+                Heat,Crime saga,170,Crime,Michael Mann,1995
+                Alien,Space horror,two hours,Horror,Ridley Scott,1979
+                "Broken,Never closed,100,Drama,Nobody,2000
+                """);
+
+        assertFalse(report.isComplete());
+        assertEquals(1, report.getImported());
+        assertEquals(List.of(
+                new ImportErrorDTO(3, "durationMinutes: two hours is not a whole number"),
+                new ImportErrorDTO(4, "Quoted field starting on line 4 is not closed")
+        ), report.getErrors());
+        verify(movieService).indexMoviesAfter(41L);
+    }
+
+    @Test
+    void rejectsUnknownAndMissingColumns() {
+        RuntimeException unknown = assertThrows(RuntimeException.class,
+                () -> importCsv("halls", "name,capacity,floor\nRed,100,2\n"));
+        assertTrue(unknown.getMessage().startsWith("Unknown columns [floor]"), unknown.getMessage());
+
+        RuntimeException missing = assertThrows(RuntimeException.class, () -> importCsv("halls", "name\nRed\n"));
+        assertEquals("Column capacity is missing for halls", missing.getMessage());
+
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+    }
+
+    private ImportReportDTO importCsv(String target, String csv) {
+        return importService.importCsv(target, new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,77 @@
+package org.firstlab.second.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvReaderTest {
+
+    @Test
+    void readsPlainAndQuotedFields() throws IOException {
+        CsvReader reader = reader("name,capacity\n\"Big, \"\"Red\"\" hall\",120\nSmall,\n");
+
+        assertEquals(List.of("name", "capacity"), reader.readRecord());
+        assertEquals(List.of("Big, \"Red\" hall", "120"), reader.readRecord());
+        assertEquals(List.of("Small", ""), reader.readRecord());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    void keepsLineBreaksInsideQuotesAndCountsLines() throws IOException {
+        CsvReader reader = reader("title,description\r\n\"Heat\",\"Two\r\nlines\"\r\n\r\nAlien,\"one\nmore\"\nLast,x");
+
+        List<Integer> lines = new ArrayList<>();
+        List<List<String>> records = new ArrayList<>();
+        List<String> record;
+        while ((record = reader.readRecord()) != null) {
+            lines.add(reader.recordLine());
+            records.add(record);
+        }
+
+        assertEquals(List.of(1, 2, 5, 7), lines);
+        assertEquals(List.of("Heat", "Two\r\nlines"), records.get(1));
+        assertEquals(List.of("Alien", "one\nmore"), records.get(2));
+        assertEquals(List.of("Last", "x"), records.get(3));
+    }
+
+    @Test
+    void skipsByteOrderMarkAndEmptyLines() throws IOException {
+        CsvReader reader = reader("\uFEFFname,capacity\n\n\nMain,100\n");
+
+        assertEquals(List.of("name", "capacity"), reader.readRecord());
+        assertEquals(List.of("Main", "100"), reader.readRecord());
+        assertEquals(4, reader.recordLine());
+        assertNull(reader.readRecord());
+    }
+
+    @Test
+    void rejectsRecordsOverTheLengthLimit() throws IOException {
+        CsvReader reader = new CsvReader(new StringReader("a,b\n" + "x".repeat(20) + "\n"), 10);
+
+        assertEquals(List.of("a", "b"), reader.readRecord());
+        IOException ex = assertThrows(IOException.class, reader::readRecord);
+        assertTrue(ex.getMessage().contains("line 2"), ex.getMessage());
+    }
+
+    @Test
+    void rejectsUnclosedQuoteWithItsStartLine() throws IOException {
+        CsvReader reader = reader("a,b\n1,2\n3,\"open\nstill open\n");
+
+        reader.readRecord();
+        reader.readRecord();
+        IOException ex = assertThrows(IOException.class, reader::readRecord);
+        assertTrue(ex.getMessage().contains("line 3"), ex.getMessage());
+    }
+
+    private static CsvReader reader(String csv) {
+        return new CsvReader(new StringReader(csv), 1024);
+    }
+}
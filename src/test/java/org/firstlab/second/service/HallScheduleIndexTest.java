@@ -0,0 +1,245 @@
+package org.firstlab.second.service;
+
+import org.firstlab.second.dto.FreeSlotDTO;
+import org.firstlab.second.repository.ScreeningRepository;
+import org.firstlab.second.repository.ScreeningSlot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Outside a transaction changes of the index apply at once; the transaction tests drive the commit and
+ * rollback hooks by hand through TransactionSynchronizationManager.
+ */
+class HallScheduleIndexTest {
+
+    private static final Long HALL = 1L;
+    private static final Long OTHER_HALL = 2L;
+    private static final Long MOVIE = 10L;
+    private static final LocalDateTime DAY = LocalDateTime.of(2030, 3, 15, 0, 0);
+
+    private ScreeningRepository screeningRepository;
+    private HallScheduleIndex index;
+
+    @BeforeEach
+    void setUp() {
+        screeningRepository = mock(ScreeningRepository.class);
+        index = new HallScheduleIndex(screeningRepository, Duration.ofMinutes(15));
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void rejectsOverlapIncludingCleaningBuffer() {
+        index.place(1L, MOVIE, HALL, at(10, 0), 120);
+
+        RuntimeException ex = assertThrows(RuntimeException.class, () -> index.place(2L, MOVIE, HALL, at(12, 14), 60));
+        assertTrue(ex.getMessage().contains("screening 1"), ex.getMessage());
+        assertDoesNotThrow(() -> index.place(2L, MOVIE, HALL, at(12, 15), 60));
+
+        // Ends 09:46, cleaned at 10:01, a minute into screening 1
+        assertThrows(RuntimeException.class, () -> index.place(3L, MOVIE, HALL, at(7, 0), 166));
+        assertDoesNotThrow(() -> index.place(3L, MOVIE, HALL, at(7, 0), 165));
+        assertDoesNotThrow(() -> index.place(4L, MOVIE, OTHER_HALL, at(10, 30), 60));
+    }
+
+    @Test
+    void findsLongScreeningStartedFarBefore() {
+        index.place(1L, MOVIE, HALL, at(8, 0), 300);
+        index.place(2L, MOVIE, HALL, at(14, 0), 60);
+
+        List<String> conflicts = conflicts(booking(at(12, 30), 30), booking(at(15, 15), 30));
+
+        assertNotNull(conflicts.get(0));
+        assertTrue(conflicts.get(0).contains("screening 1"), conflicts.get(0));
+        assertNull(conflicts.get(1));
+    }
+
+    @Test
+    void reportsOverlapsWithinTheBatch() {
+        index.place(1L, MOVIE, HALL, at(10, 0), 120);
+
+        List<String> conflicts = conflicts(booking(at(8, 0), 60), booking(at(9, 0), 30), booking(at(12, 15), 60),
+                booking(at(13, 20), 60), booking(at(13, 30), 60));
+
+        assertNull(conflicts.get(0));
+        assertTrue(conflicts.get(1).contains("same batch"), conflicts.get(1));
+        assertNull(conflicts.get(2));
+        assertTrue(conflicts.get(3).contains("same batch"), conflicts.get(3));
+        assertNull(conflicts.get(4));
+    }
+
+    @Test
+    void movesScreeningWithinTheSameHall() {
+        index.place(1L, MOVIE, HALL, at(10, 0), 120);
+
+        // Overlaps only its own old position
+        assertDoesNotThrow(() -> index.place(1L, MOVIE, HALL, at(11, 0), 120));
+
+        assertDoesNotThrow(() -> index.place(2L, MOVIE, HALL, at(10, 0), 45));
+        assertThrows(RuntimeException.class, () -> index.place(3L, MOVIE, HALL, at(12, 0), 30));
+    }
+
+    @Test
+    void keepsOldPositionUntilCommit() {
+        index.place(1L, MOVIE, HALL, at(10, 0), 60);
+
+        TransactionSynchronizationManager.initSynchronization();
+        index.place(1L, MOVIE, HALL, at(14, 0), 60);
+        assertNotNull(conflicts(booking(at(10, 0), 30)).get(0));
+        assertNotNull(conflicts(booking(at(14, 0), 30)).get(0));
+        complete(true);
+
+        assertNull(conflicts(booking(at(10, 0), 30)).get(0));
+        assertNotNull(conflicts(booking(at(14, 0), 30)).get(0));
+    }
+
+    @Test
+    void undoesPlacementOnRollback() {
+        index.place(1L, MOVIE, HALL, at(10, 0), 60);
+
+        TransactionSynchronizationManager.initSynchronization();
+        index.placeAll(List.of(
+                new HallScheduleIndex.Booking(1L, MOVIE, HALL, at(14, 0), 60),
+                new HallScheduleIndex.Booking(2L, MOVIE, HALL, at(18, 0), 60)));
+        complete(false);
+
+        assertNotNull(conflicts(booking(at(10, 0), 30)).get(0));
+        assertNull(conflicts(booking(at(14, 0), 30)).get(0));
+        assertNull(conflicts(booking(at(18, 0), 30)).get(0));
+    }
+
+    @Test
+    void placesAllOrNone() {
+        index.place(1L, MOVIE, HALL, at(10, 0), 60);
+        index.place(2L, MOVIE, HALL, at(20, 0), 60);
+
+        assertThrows(RuntimeException.class, () -> index.placeAll(List.of(
+                new HallScheduleIndex.Booking(2L, MOVIE, HALL, at(16, 0), 60),
+                new HallScheduleIndex.Booking(3L, MOVIE, HALL, at(12, 0), 60),
+                new HallScheduleIndex.Booking(4L, MOVIE, HALL, at(10, 30), 60))));
+
+        assertNull(conflicts(booking(at(12, 0), 60)).get(0));
+        assertNull(conflicts(booking(at(16, 0), 60)).get(0));
+        assertNotNull(conflicts(booking(at(20, 0), 60)).get(0));
+    }
+
+    @Test
+    void changesDurationOfEveryScreeningOfTheMovie() {
+        index.place(1L, MOVIE, HALL, at(10, 0), 120);
+        index.place(2L, MOVIE, HALL, at(13, 0), 120);
+        index.place(3L, 20L, HALL, at(17, 0), 60);
+
+        index.changeDuration(MOVIE, 150);
+        assertThrows(RuntimeException.class, () -> index.changeDuration(MOVIE, 170));
+
+        // Still 150 minutes: screening 2 ends at 15:30 and is cleaned at 15:45
+        assertNull(conflicts(booking(at(15, 45), 10)).get(0));
+        assertNotNull(conflicts(booking(at(15, 40), 10)).get(0));
+        assertNotNull(conflicts(booking(at(12, 40), 5)).get(0));
+    }
+
+    @Test
+    void listsFreeSlotsAcrossMidnight() {
+        index.place(1L, MOVIE, HALL, DAY.minusHours(1), 150);
+        index.place(2L, MOVIE, HALL, at(18, 0), 120);
+        index.place(3L, MOVIE, HALL, DAY.plusDays(1).plusHours(10), 90);
+
+        List<FreeSlotDTO> free = index.getFreeSlots(HALL, DAY, DAY.plusDays(1));
+
+        assertEquals(List.of(
+                new FreeSlotDTO(at(1, 45), at(17, 45)),
+                new FreeSlotDTO(at(20, 15), DAY.plusDays(1).plusHours(9).plusMinutes(45))
+        ), free);
+        assertEquals(List.of(new FreeSlotDTO(DAY.plusDays(1).plusHours(11).plusMinutes(45), null)),
+                index.getFreeSlots(HALL, DAY.plusDays(1).plusHours(11), DAY.plusDays(2)));
+        assertEquals(List.of(new FreeSlotDTO(DAY, null)), index.getFreeSlots(OTHER_HALL, DAY, DAY.plusDays(1)));
+    }
+
+    @Test
+    void loadsScheduleAndKeepsScreeningsPlacedMeanwhile() {
+        when(screeningRepository.findAllSlots()).thenReturn(List.of(
+                new ScreeningSlot(1L, MOVIE, HALL, at(10, 0), 120),
+                new ScreeningSlot(2L, MOVIE, HALL, at(15, 0), 60)));
+        index.place(2L, MOVIE, HALL, at(18, 0), 60);
+
+        index.loadSchedule();
+
+        assertNotNull(conflicts(booking(at(11, 0), 30)).get(0));
+        assertNull(conflicts(booking(at(15, 0), 30)).get(0));
+        assertNotNull(conflicts(booking(at(18, 0), 30)).get(0));
+    }
+
+    @Test
+    void skipsScreeningsRemovedBeforeLoadFinishes() {
+        when(screeningRepository.findAllSlots()).thenReturn(List.of(
+                new ScreeningSlot(1L, MOVIE, HALL, at(10, 0), 120),
+                new ScreeningSlot(2L, MOVIE, HALL, at(15, 0), 60)));
+        // Удалён после чтения findAllSlots, но до того, как загрузка дошла до него
+        index.remove(1L);
+
+        index.loadSchedule();
+
+        assertNull(conflicts(booking(at(10, 0), 120)).get(0));
+        assertNotNull(conflicts(booking(at(15, 0), 30)).get(0));
+
+        // После загрузки удаление снимает сеанс как обычно, без записи в список
+        index.remove(2L);
+        assertNull(conflicts(booking(at(15, 0), 30)).get(0));
+    }
+
+    @Test
+    void removesScreening() {
+        index.place(1L, MOVIE, HALL, at(10, 0), 120);
+
+        index.remove(1L);
+
+        assertNull(conflicts(booking(at(10, 0), 120)).get(0));
+    }
+
+    private List<String> conflicts(HallScheduleIndex.Booking... bookings) {
+        return index.findConflicts(HALL, Arrays.asList(bookings));
+    }
+
+    private static HallScheduleIndex.Booking booking(LocalDateTime start, int durationMinutes) {
+        return new HallScheduleIndex.Booking(null, MOVIE, HALL, start, durationMinutes);
+    }
+
+    private static LocalDateTime at(int hour, int minute) {
+        return DAY.plusHours(hour).plusMinutes(minute);
+    }
+
+    private static void complete(boolean committed) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        for (TransactionSynchronization synchronization : synchronizations) {
+            if (committed) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(committed
+                    ? TransactionSynchronization.STATUS_COMMITTED
+                    : TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+    }
+}
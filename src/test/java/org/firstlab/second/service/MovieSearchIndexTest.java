@@ -0,0 +1,79 @@
+package org.firstlab.second.service;
+
+import org.firstlab.second.dto.MovieDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Outside a transaction put and remove apply at once, so a remove inside the load source stands for
+ * a delete committed while the movies were being read.
+ */
+class MovieSearchIndexTest {
+
+    private final MovieSearchIndex index = new MovieSearchIndex();
+
+    @Test
+    void skipsMoviesRemovedWhileLoading() {
+        index.load(() -> {
+            List<MovieDTO> read = List.of(movie(1L, "Heat"), movie(2L, "Alien"));
+            index.remove(1L);
+            return read;
+        });
+
+        assertTrue(index.isReady());
+        assertEquals(List.of(), index.search("heat", 0, 10));
+        assertEquals(List.of(2L), ids(index.search("alien", 0, 10)));
+    }
+
+    @Test
+    void keepsMoviesIndexedWhileLoading() {
+        index.load(() -> {
+            List<MovieDTO> read = List.of(movie(1L, "Heat"));
+            index.put(movie(1L, "Heat Director's Cut"));
+            return read;
+        });
+
+        assertEquals(List.of(1L), ids(index.search("cut", 0, 10)));
+    }
+
+    @Test
+    void addsMoviesWithoutMarkingIndexReady() {
+        index.add(() -> List.of(movie(5L, "Solaris")));
+
+        assertFalse(index.isReady());
+        assertEquals(List.of(5L), ids(index.search("solaris", 0, 10)));
+    }
+
+    @Test
+    void removesNormallyAfterLoad() {
+        index.load(() -> List.of(movie(1L, "Heat")));
+        index.add(() -> List.of(movie(2L, "Heat Wave")));
+
+        index.remove(1L);
+        index.load(() -> List.of(movie(1L, "Heat")));
+
+        // Удаление до начала загрузки не запоминается: фильм, который она прочитала, снова в индексе
+        assertEquals(List.of(1L, 2L), ids(index.search("heat", 0, 10)));
+    }
+
+    @Test
+    void returnsEmptyPageForOffsetPastTheHits() {
+        index.load(() -> List.of(movie(1L, "Heat"), movie(2L, "Heat Wave")));
+
+        assertEquals(List.of(), index.search("heat", 2, 10));
+        assertEquals(List.of(2L), ids(index.search("heat", 1, Integer.MAX_VALUE)));
+    }
+
+    private static MovieDTO movie(Long id, String title) {
+        return new MovieDTO(id, title, "Description", 120, "Drama", "Director", 2000);
+    }
+
+    private static List<Long> ids(List<MovieDTO> movies) {
+        return movies.stream().map(MovieDTO::getId).toList();
+    }
+}
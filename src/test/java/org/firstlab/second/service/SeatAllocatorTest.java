@@ -0,0 +1,110 @@
+package org.firstlab.second.service;
+
+import org.firstlab.second.dto.HallRowDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SeatAllocatorTest {
+
+    @Test
+    void findsStartsOfFreeRuns() {
+        assertEquals(0b10001L, SeatAllocator.runStarts(0b1110111L, 3));
+        assertEquals(0b1110111L, SeatAllocator.runStarts(0b1110111L, 1));
+        assertEquals(0b10L, SeatAllocator.runStarts(0b111110L, 5));
+        assertEquals(0L, SeatAllocator.runStarts(0b111101L, 5));
+        assertEquals(-1L >>> 2, SeatAllocator.runStarts(-1L, 3));
+        assertEquals(1L, SeatAllocator.runStarts(-1L, 64));
+        assertEquals(0L, SeatAllocator.runStarts(-1L & ~(1L << 40), 64));
+    }
+
+    @Test
+    void prefersCenterOfTheRow() {
+        SeatMap seatMap = new SeatMap(10, new int[0]);
+
+        assertEquals(List.of(5, 6), SeatAllocator.findBest(seatMap, List.of(row("A", null, 10, 1.0, 1)), 2, null));
+    }
+
+    @Test
+    void findsBlockAtTheEndOfARow() {
+        SeatMap seatMap = new SeatMap(10, seats(1, 7));
+
+        assertEquals(List.of(8, 9, 10), SeatAllocator.findBest(seatMap, List.of(row("A", null, 10, 1.0, 1)), 3, null));
+        assertEquals(List.of(), SeatAllocator.findBest(seatMap, List.of(row("A", null, 10, 1.0, 1)), 4, null));
+    }
+
+    @Test
+    void doesNotJoinSeatsOfAdjacentRows() {
+        // Seats 4-5 end row A and 6-7 start row B: four adjacent numbers, but in two rows
+        int[] taken = IntStream.rangeClosed(1, 10).filter(seat -> seat < 4 || seat > 7).toArray();
+        SeatMap seatMap = new SeatMap(10, taken);
+        List<HallRowDTO> rows = List.of(row("A", null, 5, 1.0, 1), row("B", null, 5, 1.0, 6));
+
+        assertEquals(List.of(), SeatAllocator.findBest(seatMap, rows, 4, null));
+        assertEquals(List.of(4, 5), SeatAllocator.findBest(seatMap, rows, 2, null));
+    }
+
+    @Test
+    void prefersBetterRowAndEarlierRowOnTies() {
+        SeatMap seatMap = new SeatMap(30, new int[0]);
+
+        assertEquals(List.of(15, 16), SeatAllocator.findBest(seatMap, List.of(
+                row("A", null, 10, 1.0, 1), row("B", null, 10, 2.0, 11), row("C", null, 10, 1.5, 21)), 2, null));
+        assertEquals(List.of(5, 6), SeatAllocator.findBest(seatMap, List.of(
+                row("A", null, 10, 1.0, 1), row("B", null, 10, 1.0, 11)), 2, null));
+    }
+
+    @Test
+    void fillsA64SeatRow() {
+        List<HallRowDTO> rows = List.of(row("A", null, 64, 1.0, 1));
+
+        assertEquals(seatList(1, 64), SeatAllocator.findBest(new SeatMap(64, new int[0]), rows, 64, null));
+        assertEquals(List.of(), SeatAllocator.findBest(new SeatMap(64, new int[]{64}), rows, 64, null));
+        assertEquals(seatList(1, 63), SeatAllocator.findBest(new SeatMap(64, new int[]{64}), rows, 63, null));
+    }
+
+    @Test
+    void readsRowsCrossingAWordBoundary() {
+        // Row B covers seats 41-90, bits 40-89: it starts in the first word and ends in the second
+        List<HallRowDTO> rows = List.of(row("A", null, 40, 1.0, 1), row("B", null, 50, 1.0, 41));
+        int[] taken = IntStream.rangeClosed(1, 90).filter(seat -> seat < 62 || seat > 67).toArray();
+
+        assertEquals(seatList(62, 67), SeatAllocator.findBest(new SeatMap(90, taken), rows, 6, null));
+        assertEquals(List.of(), SeatAllocator.findBest(new SeatMap(90, taken), rows, 7, null));
+    }
+
+    @Test
+    void fillsA64SeatRowSpanningTwoWords() {
+        List<HallRowDTO> rows = List.of(row("A", null, 32, 1.0, 1), row("B", null, 64, 1.0, 33));
+
+        assertEquals(seatList(33, 96), SeatAllocator.findBest(new SeatMap(96, new int[0]), rows, 64, null));
+        assertEquals(List.of(), SeatAllocator.findBest(new SeatMap(96, new int[]{96}), rows, 64, null));
+        assertEquals(seatList(33, 95), SeatAllocator.findBest(new SeatMap(96, new int[]{96}), rows, 63, null));
+    }
+
+    @Test
+    void filtersBySection() {
+        SeatMap seatMap = new SeatMap(20, new int[0]);
+        List<HallRowDTO> rows = List.of(row("A", "stalls", 10, 1.0, 1), row("B", "balcony", 10, 2.0, 11));
+
+        assertEquals(List.of(15, 16), SeatAllocator.findBest(seatMap, rows, 2, null));
+        assertEquals(List.of(5, 6), SeatAllocator.findBest(seatMap, rows, 2, "STALLS"));
+        assertEquals(List.of(), SeatAllocator.findBest(seatMap, rows, 2, "vip"));
+    }
+
+    private static HallRowDTO row(String label, String section, int seats, double quality, int firstSeat) {
+        return new HallRowDTO(label, section, seats, quality, firstSeat);
+    }
+
+    private static int[] seats(int first, int last) {
+        return IntStream.rangeClosed(first, last).toArray();
+    }
+
+    private static List<Integer> seatList(int first, int last) {
+        return new ArrayList<>(IntStream.rangeClosed(first, last).boxed().toList());
+    }
+}
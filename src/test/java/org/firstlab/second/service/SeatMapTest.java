@@ -0,0 +1,61 @@
+package org.firstlab.second.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeatMapTest {
+
+    @Test
+    void readsOccupancyWithinAWord() {
+        SeatMap seatMap = new SeatMap(100, new int[]{3, 5, 10});
+
+        assertEquals(0b10100L, seatMap.occupancy(1, 5));
+        assertEquals(0b101L, seatMap.occupancy(3, 3));
+        assertEquals(0L, seatMap.occupancy(11, 20));
+    }
+
+    @Test
+    void readsOccupancyAcrossTwoWords() {
+        SeatMap seatMap = new SeatMap(200, new int[]{60, 64, 65, 70});
+
+        // Seats 60-75: bits 59-74, the read starts in word 0 and ends in word 1
+        assertEquals(1L | 1L << 4 | 1L << 5 | 1L << 10, seatMap.occupancy(60, 16));
+        assertEquals(1L << 3, seatMap.occupancy(61, 4));
+        assertEquals(1L, seatMap.occupancy(65, 1));
+    }
+
+    @Test
+    void readsFull64SeatRange() {
+        SeatMap seatMap = new SeatMap(200, new int[]{33, 96, 97});
+
+        assertEquals(1L | 1L << 63, seatMap.occupancy(33, 64));
+        assertEquals(1L << 31 | 1L << 32, seatMap.occupancy(65, 64));
+        assertEquals(0L, seatMap.occupancy(98, 64));
+    }
+
+    @Test
+    void rejectsRangeOutsideTheHall() {
+        SeatMap seatMap = new SeatMap(100, new int[0]);
+
+        assertThrows(IllegalArgumentException.class, () -> seatMap.occupancy(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> seatMap.occupancy(90, 12));
+    }
+
+    @Test
+    void claimsAllOrNone() {
+        SeatMap seatMap = new SeatMap(100, new int[]{65});
+
+        assertEquals(List.of(65), seatMap.tryClaimAll(List.of(63, 64, 65)));
+        assertTrue(seatMap.isFree(63));
+        assertTrue(seatMap.isFree(64));
+        assertEquals(List.of(), seatMap.tryClaimAll(List.of(63, 64)));
+        assertFalse(seatMap.isFree(64));
+        assertEquals(3, seatMap.occupiedSeats());
+    }
+}
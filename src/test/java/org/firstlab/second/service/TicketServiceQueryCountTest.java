@@ -0,0 +1,116 @@
+package org.firstlab.second.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.firstlab.second.entity.Customer;
+import org.firstlab.second.entity.Hall;
+import org.firstlab.second.entity.Movie;
+import org.firstlab.second.entity.Screening;
+import org.firstlab.second.entity.Ticket;
+import org.firstlab.second.repository.CustomerRepository;
+import org.firstlab.second.repository.HallRepository;
+import org.firstlab.second.repository.MovieRepository;
+import org.firstlab.second.repository.ScreeningRepository;
+import org.firstlab.second.repository.TicketRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TicketServiceQueryCountTest {
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private ScreeningRepository screeningRepository;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private HallRepository hallRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Screening screening;
+    private Customer customer;
+    private int nextSeat;
+
+    @BeforeEach
+    void setUp() {
+        ticketRepository.deleteAll();
+        screeningRepository.deleteAll();
+        customerRepository.deleteAll();
+        movieRepository.deleteAll();
+        hallRepository.deleteAll();
+
+        Movie movie = movieRepository.save(new Movie(null, "Solaris", "Ocean planet", 167, "Drama", "Tarkovsky", 1972));
+        Hall hall = hallRepository.save(new Hall(null, "Main", 500));
+        customer = customerRepository.save(new Customer(null, "Anna", "Petrova", "anna@example.com", "+70000000000"));
+        screening = screeningRepository.save(
+                new Screening(null, movie, hall, LocalDateTime.now().plusDays(1), 450.0, hall.getCapacity()));
+        nextSeat = 1;
+    }
+
+    @Test
+    void getAllTicketsIssuesSameNumberOfQueriesRegardlessOfSize() {
+        addTickets(5);
+        long small = countQueries(() -> assertEquals(5, ticketService.getAllTickets(0L, 1000, true).size()));
+
+        addTickets(95);
+        long large = countQueries(() -> assertEquals(100, ticketService.getAllTickets(0L, 1000, true).size()));
+
+        assertEquals(small, large);
+    }
+
+    @Test
+    void getTicketsByScreeningIssuesSameNumberOfQueriesRegardlessOfSize() {
+        addTickets(5);
+        long small = countQueries(() -> assertEquals(5, ticketService.getTicketsByScreening(screening.getId(), true).size()));
+
+        addTickets(95);
+        long large = countQueries(() -> assertEquals(100, ticketService.getTicketsByScreening(screening.getId(), true).size()));
+
+        assertEquals(small, large);
+    }
+
+    @Test
+    void ticketSummariesAreReadWithSingleQuery() {
+        addTickets(100);
+        long queries = countQueries(() -> {
+            assertEquals(100, ticketService.getAllTickets(0L, 1000, false).size());
+            assertEquals(100, ticketService.getTicketsByScreening(screening.getId(), false).size());
+        });
+
+        assertEquals(2, queries);
+    }
+
+    private void addTickets(int count) {
+        for (int i = 0; i < count; i++) {
+            ticketRepository.save(new Ticket(null, screening, customer, nextSeat++, LocalDateTime.now(), false));
+        }
+    }
+
+    private long countQueries(Runnable action) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+}